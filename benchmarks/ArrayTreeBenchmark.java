@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares ArrayRedBlackTree with RedBlackTree: insert and contains throughput, heap retained by
+ * the tree structure per key (both trees share the same key objects, so keys are not counted) and
+ * the time a full garbage collection takes while the tree is alive.
+ *
+ * java -Xmx16g -cp out ArrayTreeBenchmark sizes=1e6,1e7
+ *
+ * Recognized arguments are sizes, keys (integer, long, string), warmup and iterations.
+ */
+public class ArrayTreeBenchmark {
+
+    // number of full collections averaged for the gc pause figure
+    private static final int GC_RUNS = 5;
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        KeyStreams.KeyType keyType = KeyStreams.KeyType.INTEGER;
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        sizes.add((int) Double.parseDouble(value));
+                    }
+                    break;
+                case "keys":
+                    keyType = KeyStreams.KeyType.valueOf(parts[1].toUpperCase());
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        List<String> footprints = new ArrayList<>();
+        for (int n : sizes) {
+            Comparable[] keys = KeyStreams.box(
+                    KeyStreams.generate(KeyStreams.Distribution.RANDOM, n, 42), keyType);
+            measure(harness, "ArrayRedBlackTree/" + keyType, ArrayRedBlackTree::new, keys,
+                    footprints);
+            measure(harness, "RedBlackTree/" + keyType, RedBlackTree::new, keys, footprints);
+        }
+        System.out.println();
+        System.out.println(String.format("%-48s %12s %14s %14s", "footprint", "n", "bytes/key",
+                "full gc (ms)"));
+        footprints.forEach(System.out::println);
+    }
+
+    /**
+     * Runs the insert and contains benchmarks on one tree implementation and records its
+     * footprint. The trees built here are unreachable once this method returns, so the gc figure
+     * of the next implementation doesn't trace them.
+     */
+    private static void measure(BenchmarkHarness harness, String name,
+                                Supplier<SortedCollection> factory, Comparable[] keys,
+                                List<String> footprints) {
+        int n = keys.length;
+        System.out.println(harness.run("insert " + name, n, n, () -> {
+            SortedCollection tree = factory.get();
+            return i -> tree.insert(keys[i]);
+        }));
+        SortedCollection tree = build(factory.get(), keys);
+        System.out.println(harness.run("contains " + name, n, n,
+                () -> i -> BenchmarkHarness.consume(tree.contains(keys[i]))));
+        footprints.add(footprint(name, n, tree.size(),
+                BenchmarkHarness.retainedBytes(() -> build(factory.get(), keys)), fullGcMillis()));
+    }
+
+    /**
+     * Inserts all keys into tree and returns it.
+     */
+    private static SortedCollection build(SortedCollection tree, Comparable[] keys) {
+        for (Comparable key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    /**
+     * @return the average wall clock time of a full collection in milliseconds
+     */
+    private static double fullGcMillis() {
+        System.gc();
+        long start = System.nanoTime();
+        for (int i = 0; i < GC_RUNS; i++) {
+            System.gc();
+        }
+        return (System.nanoTime() - start) / 1e6 / GC_RUNS;
+    }
+
+    /**
+     * Formats one line of the footprint table.
+     */
+    private static String footprint(String name, int n, int stored, long bytes, double gcMillis) {
+        return String.format("%-48s %12d %14.1f %14.1f", name, n, (double) bytes / stored,
+                gcMillis);
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares BPlusTree at several fanouts, with binary and with linear search inside nodes, against
+ * RedBlackTree and java.util.TreeMap: insert and contains throughput, ascending scan throughput
+ * over the whole collection, and heap retained by the structure per key (all collections share
+ * the same key objects, so keys are not counted).
+ *
+ * java -Xmx8g -cp out BPlusTreeBenchmark sizes=1e6 fanouts=16,64,256
+ *
+ * Recognized arguments are sizes, fanouts, keys (integer, long, string), warmup and iterations.
+ */
+public class BPlusTreeBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        List<Integer> fanouts = List.of(16, 64, 256);
+        KeyStreams.KeyType keyType = KeyStreams.KeyType.INTEGER;
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "fanouts":
+                    fanouts = parseInts(parts[1]);
+                    break;
+                case "keys":
+                    keyType = KeyStreams.KeyType.valueOf(parts[1].toUpperCase());
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        List<String> footprints = new ArrayList<>();
+        for (int n : sizes) {
+            Comparable[] keys = KeyStreams.box(
+                    KeyStreams.generate(KeyStreams.Distribution.RANDOM, n, 42), keyType);
+            for (int fanout : fanouts) {
+                measure(harness, "BPlusTree/" + fanout + "/binary",
+                        () -> new BPlusTree(fanout, false), keys, footprints);
+                measure(harness, "BPlusTree/" + fanout + "/linear",
+                        () -> new BPlusTree(fanout, true), keys, footprints);
+            }
+            measure(harness, "RedBlackTree", RedBlackTree::new, keys, footprints);
+            measure(harness, "TreeMap", TreeMapCollection::new, keys, footprints);
+        }
+        System.out.println();
+        System.out.println(String.format("%-48s %12s %14s", "footprint", "n", "bytes/key"));
+        footprints.forEach(System.out::println);
+    }
+
+    /**
+     * Runs the insert, contains and scan benchmarks on one implementation and records its
+     * footprint. TreeMapCollection is not Iterable, so TreeMap has no scan figure.
+     */
+    private static void measure(BenchmarkHarness harness, String name,
+                                Supplier<SortedCollection> factory, Comparable[] keys,
+                                List<String> footprints) {
+        int n = keys.length;
+        System.out.println(harness.run("insert " + name, n, n, () -> {
+            SortedCollection tree = factory.get();
+            return i -> tree.insert(keys[i]);
+        }));
+        SortedCollection tree = build(factory.get(), keys);
+        System.out.println(harness.run("contains " + name, n, n,
+                () -> i -> BenchmarkHarness.consume(tree.contains(keys[i]))));
+        int stored = tree.size();
+        if (tree instanceof Iterable) {
+            System.out.println(harness.run("scan " + name, n, stored, () -> {
+                Iterator<?> iterator = ((Iterable<?>) tree).iterator();
+                return i -> BenchmarkHarness.consume(iterator.next() != null);
+            }));
+        }
+        long bytes = BenchmarkHarness.retainedBytes(() -> build(factory.get(), keys));
+        footprints.add(String.format("%-48s %12d %14.1f", name, n, (double) bytes / stored));
+    }
+
+    /**
+     * Inserts all keys into tree and returns it.
+     */
+    private static SortedCollection build(SortedCollection tree, Comparable[] keys) {
+        for (Comparable key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
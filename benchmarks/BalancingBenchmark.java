@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the insert latency of the balancing schemes of BSTRotation.create: RedBlackTree,
+ * LeftLeaningRedBlackTree and AATree. Every scheme inserts the same keys of every distribution
+ * into an empty tree; the p50 and p99 columns are the latencies of single inserts. After the
+ * table, the height and rotation count of one tree per scheme and distribution are printed.
+ *
+ * java -Xmx8g -cp out BalancingBenchmark sizes=1e6 dists=random,sequential,zipfian
+ *
+ * Recognized arguments are sizes, dists, schemes (red_black, left_leaning, aa), keys (integer,
+ * long, string), warmup and iterations.
+ */
+public class BalancingBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        List<KeyStreams.Distribution> dists = List.of(KeyStreams.Distribution.values());
+        List<BSTRotation.Balancing> schemes = List.of(BSTRotation.Balancing.values());
+        KeyStreams.KeyType keyType = KeyStreams.KeyType.LONG;
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "dists":
+                    dists = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        dists.add(KeyStreams.Distribution.valueOf(value.toUpperCase()));
+                    }
+                    break;
+                case "schemes":
+                    schemes = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        schemes.add(BSTRotation.Balancing.valueOf(value.toUpperCase()));
+                    }
+                    break;
+                case "keys":
+                    keyType = KeyStreams.KeyType.valueOf(parts[1].toUpperCase());
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        List<String> shapes = new ArrayList<>();
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            for (KeyStreams.Distribution dist : dists) {
+                Comparable[] keys = KeyStreams.box(KeyStreams.generate(dist, n, 42), keyType);
+                for (BSTRotation.Balancing scheme : schemes) {
+                    System.out.println(harness.run("insert " + scheme + " " + dist, n, n, () -> {
+                        BSTRotation tree = BSTRotation.create(scheme, false);
+                        return i -> tree.insert(keys[i]);
+                    }));
+                    BSTRotation tree = BSTRotation.create(scheme, false);
+                    TreeStatistics counters = new TreeStatistics();
+                    tree.setMetrics(counters);
+                    for (Comparable key : keys) {
+                        tree.insert(key);
+                    }
+                    shapes.add(String.format("n=%d %s %s: height=%d rotations=%d", n, dist,
+                            scheme, tree.height(),
+                            counters.getLeftRotations() + counters.getRightRotations()));
+                }
+            }
+        }
+        shapes.forEach(System.out::println);
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares RedBlackTree.insertAll with calling insert once per key, for batches of several
+ * sizes added to a tree that already holds n keys. Every iteration starts from a fresh copy of
+ * the tree and adds batches until it has received n new keys, so one operation is one batch:
+ * multiply ops/s by the batch size for keys per second. Batches of random keys are spread over
+ * the whole key space; sequential batches continue after the largest key, like timestamps do.
+ *
+ * java -Xmx8g -cp out BatchInsertBenchmark sizes=1e6 batches=1e3,1e4,1e5,1e6
+ *
+ * Recognized arguments are sizes, batches, warmup and iterations.
+ */
+public class BatchInsertBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(1_000_000);
+        List<Integer> batches = List.of(1_000, 10_000, 100_000, 1_000_000);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "batches":
+                    batches = parseInts(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            // the initial tree holds the even numbers below 2n
+            Long[] initial = new Long[n];
+            for (int i = 0; i < n; i++) {
+                initial[i] = 2L * i;
+            }
+            Random random = new Random(42);
+            Long[] randomKeys = new Long[n];
+            Long[] sequentialKeys = new Long[n];
+            for (int i = 0; i < n; i++) {
+                randomKeys[i] = (long) random.nextInt(2 * n);
+                sequentialKeys[i] = 2L * n + i;
+            }
+            for (int batch : batches) {
+                int count = Math.max(1, n / batch);
+                for (String order : new String[] {"random", "sequential"}) {
+                    Long[] keys = order.equals("random") ? randomKeys : sequentialKeys;
+                    Long[][] split = new Long[count][];
+                    for (int b = 0; b < count; b++) {
+                        split[b] = Arrays.copyOfRange(keys, b * batch, Math.min(n, (b + 1) * batch));
+                    }
+                    System.out.println(harness.run("insert loop " + order + " batch " + batch, n,
+                            count, () -> {
+                                RedBlackTree<Long> tree = RedBlackTree.fromSorted(initial);
+                                return b -> {
+                                    for (Long key : split[b]) {
+                                        tree.insert(key);
+                                    }
+                                    BenchmarkHarness.consume(tree.size());
+                                };
+                            }));
+                    System.out.println(harness.run("insertAll " + order + " batch " + batch, n,
+                            count, () -> {
+                                RedBlackTree<Long> tree = RedBlackTree.fromSorted(initial);
+                                return b -> {
+                                    tree.insertAll(split[b]);
+                                    BenchmarkHarness.consume(tree.size());
+                                };
+                            }));
+                }
+            }
+        }
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,239 @@
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Small dependency-free measurement harness used by the benchmark classes in this directory.
+ * Every benchmark is run as a number of warmup iterations followed by measured iterations. A
+ * measured iteration reports throughput and allocation, and one extra pass times every operation
+ * individually so that percentile latencies can be reported.
+ */
+public class BenchmarkHarness {
+
+    // number of unmeasured iterations run before measuring, so the JIT can compile the hot paths
+    private final int warmupIterations;
+    // number of measured iterations that are averaged for the throughput and allocation figures
+    private final int measurementIterations;
+    // upper bound on the number of per-operation latency samples kept for one benchmark
+    private static final int MAX_LATENCY_SAMPLES = 1_000_000;
+
+    // sink that keeps the JIT from eliminating operations whose result is otherwise unused
+    private static volatile long blackhole;
+
+    /**
+     * A single operation of a benchmark. The index identifies which key of the prepared key
+     * stream the operation works on.
+     */
+    public interface Operation {
+        void apply(int index);
+    }
+
+    /**
+     * Creates a harness with the given number of warmup and measured iterations.
+     *
+     * @param warmupIterations      iterations run before measuring
+     * @param measurementIterations iterations that are measured
+     */
+    public BenchmarkHarness(int warmupIterations, int measurementIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
+
+    /**
+     * Consumes a value so that the computation producing it can't be removed as dead code.
+     *
+     * @param value the value to consume
+     */
+    public static void consume(boolean value) {
+        if (value) {
+            blackhole++;
+        }
+    }
+
+    /**
+     * Consumes a value so that the computation producing it can't be removed as dead code.
+     *
+     * @param value the value to consume
+     */
+    public static void consume(long value) {
+        blackhole += value;
+    }
+
+    /**
+     * Runs a benchmark. The fixture is asked for a fresh operation before every iteration, so
+     * state built up by one iteration (like the nodes added by inserts) never leaks into the next
+     * one. Time spent inside the fixture is not measured.
+     *
+     * @param label   the name of the benchmark, printed in the first column of the result
+     * @param n       the number of keys the benchmarked collection holds or receives
+     * @param ops     how many times the operation is applied per iteration
+     * @param fixture creates the operation (and the state it works on) for one iteration
+     * @return the measured result, or a result describing the error that ended the run
+     */
+    public Result run(String label, int n, int ops, Supplier<Operation> fixture) {
+        try {
+            // warm up without recording anything
+            for (int i = 0; i < warmupIterations; i++) {
+                loop(fixture.get(), ops);
+            }
+            // measure throughput and allocation over the measured iterations
+            long totalNanos = 0;
+            long totalBytes = 0;
+            for (int i = 0; i < measurementIterations; i++) {
+                Operation operation = fixture.get();
+                long bytesBefore = allocatedBytes();
+                long start = System.nanoTime();
+                loop(operation, ops);
+                totalNanos += System.nanoTime() - start;
+                totalBytes += allocatedBytes() - bytesBefore;
+            }
+            // one extra pass that times every operation individually (or every stride-th one)
+            long[] samples = sampleLatencies(fixture.get(), ops);
+            long measuredOps = (long) ops * measurementIterations;
+            return new Result(label, n, measuredOps * 1e9 / totalNanos,
+                    percentile(samples, 0.50), percentile(samples, 0.99),
+                    totalBytes < 0 ? Double.NaN : (double) totalBytes / measuredOps, null);
+        } catch (StackOverflowError | OutOfMemoryError e) {
+            // degenerate inputs are part of what we want to see, so report them instead of dying
+            return new Result(label, n, 0, 0, 0, 0, e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Measures how many bytes of heap the structure returned by builder keeps reachable, by
+     * comparing the used heap after full collections before and after building it. Anything the
+     * builder reads (like a prepared key array) must be allocated before this method is called.
+     *
+     * @param builder creates the structure to measure
+     * @return the number of bytes retained by the structure
+     */
+    public static long retainedBytes(Supplier<?> builder) {
+        long before = usedHeapAfterGc();
+        Object structure = builder.get();
+        long after = usedHeapAfterGc();
+        // keep the structure reachable until the second measurement is done
+        Reference.reachabilityFence(structure);
+        return after - before;
+    }
+
+    /**
+     * Runs the garbage collector a few times and returns the heap space in use afterwards.
+     */
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // repeat until a collection frees nothing more, so finalizable garbage is gone as well
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    /**
+     * Applies the operation ops times.
+     */
+    private static void loop(Operation operation, int ops) {
+        for (int i = 0; i < ops; i++) {
+            operation.apply(i);
+        }
+    }
+
+    /**
+     * Applies the operation ops times, timing each call. For very long runs only every stride-th
+     * call is timed, but all calls are still made so the state matches the throughput runs.
+     */
+    private static long[] sampleLatencies(Operation operation, int ops) {
+        int stride = Math.max(1, ops / MAX_LATENCY_SAMPLES);
+        long[] samples = new long[(ops + stride - 1) / stride];
+        int next = 0;
+        for (int i = 0; i < ops; i++) {
+            if (i % stride == 0) {
+                long start = System.nanoTime();
+                operation.apply(i);
+                samples[next++] = System.nanoTime() - start;
+            } else {
+                operation.apply(i);
+            }
+        }
+        Arrays.sort(samples, 0, next);
+        return Arrays.copyOf(samples, next);
+    }
+
+    /**
+     * Returns the given percentile of sorted samples, or 0 when there are no samples.
+     */
+    private static long percentile(long[] sortedSamples, double p) {
+        if (sortedSamples.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sortedSamples.length) - 1;
+        return sortedSamples[Math.max(0, Math.min(index, sortedSamples.length - 1))];
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far, or -1 when the JVM
+     * doesn't support allocation tracking. This is the same counter JMH's gc profiler reads.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Prints the header line matching the rows printed by Result.toString().
+     */
+    public static void printHeader() {
+        System.out.println(String.format("%-48s %12s %14s %10s %10s %10s", "benchmark", "n",
+                "ops/s", "p50(ns)", "p99(ns)", "B/op"));
+    }
+
+    /**
+     * The outcome of one benchmark run.
+     */
+    public static class Result {
+        public final String label;
+        public final int n;
+        public final double opsPerSecond;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final double bytesPerOp;
+        // name of the error that ended the run, or null when it completed
+        public final String error;
+
+        /**
+         * Creates a result with the given figures.
+         */
+        public Result(String label, int n, double opsPerSecond, long p50Nanos, long p99Nanos,
+                      double bytesPerOp, String error) {
+            this.label = label;
+            this.n = n;
+            this.opsPerSecond = opsPerSecond;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.bytesPerOp = bytesPerOp;
+            this.error = error;
+        }
+
+        /**
+         * Returns one aligned line of the result table.
+         */
+        @Override
+        public String toString() {
+            if (error != null) {
+                return String.format("%-48s %12d %14s", label, n, error);
+            }
+            return String.format("%-48s %12d %14.0f %10d %10d %10.1f", label, n, opsPerSecond,
+                    p50Nanos, p99Nanos, bytesPerOp);
+        }
+    }
+}
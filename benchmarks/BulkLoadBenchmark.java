@@ -0,0 +1,61 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares building a RedBlackTree with RedBlackTree.fromSorted against inserting every key on
+ * its own, for sorted input (the O(n) path) and random input (sorted first, then built). Each
+ * operation of this benchmark loads a whole tree, so ops/s is loads per second and the latency
+ * columns are the time of one complete load.
+ *
+ * java -Xmx16g -cp out BulkLoadBenchmark sizes=1e6,5e7
+ *
+ * Recognized arguments are sizes, warmup and iterations.
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        sizes.add((int) Double.parseDouble(value));
+                    }
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            for (KeyStreams.Distribution dist : Arrays.asList(KeyStreams.Distribution.SORTED,
+                    KeyStreams.Distribution.RANDOM)) {
+                Long[] keys = Arrays.stream(KeyStreams.box(
+                        KeyStreams.generate(dist, n, 42), KeyStreams.KeyType.LONG)).toArray(Long[]::new);
+                System.out.println(harness.run("fromSorted " + dist, n, 1,
+                        () -> i -> BenchmarkHarness.consume(RedBlackTree.fromSorted(keys).size())));
+                System.out.println(harness.run("insert loop " + dist, n, 1, () -> i -> {
+                    RedBlackTree<Long> tree = new RedBlackTree<>();
+                    for (Long key : keys) {
+                        tree.insert(key);
+                    }
+                    BenchmarkHarness.consume(tree.size());
+                }));
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares three ways of keeping records in a RedBlackTree ordered by a field other than their
+ * natural ordering:
+ * - wrapper wraps every record in an object whose compareTo compares the field, which is what
+ *   callers had to do before trees took an ordering, and allocates one wrapper per operation,
+ * - comparator passes a Comparator comparing the field to the tree,
+ * - key passes a ToLongFunction extracting the field, so searches compare primitive keys.
+ * Every variant inserts n records in random order, then looks each of them up once.
+ *
+ * java -Xmx8g -cp out ComparatorBenchmark sizes=1e5,1e6
+ *
+ * Recognized arguments are sizes, warmup and iterations.
+ */
+public class ComparatorBenchmark {
+
+    /**
+     * A record whose natural ordering is by name, while the benchmark orders by id.
+     */
+    static final class Order implements Comparable<Order> {
+        final long id;
+        final String name;
+
+        Order(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(Order other) {
+            return name.compareTo(other.name);
+        }
+    }
+
+    /**
+     * Adapter that orders Orders by id, one per record and per lookup.
+     */
+    static final class ById implements Comparable<ById> {
+        final Order order;
+
+        ById(Order order) {
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(ById other) {
+            return Long.compare(order.id, other.order.id);
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            Random random = new Random(42);
+            Order[] orders = new Order[n];
+            for (int i = 0; i < n; i++) {
+                orders[i] = new Order(random.nextLong(), "order" + i);
+            }
+            System.out.println(harness.run("insert wrapper", n, n, () -> {
+                RedBlackTree<ById> tree = new RedBlackTree<>();
+                return i -> tree.insert(new ById(orders[i]));
+            }));
+            System.out.println(harness.run("insert comparator", n, n, () -> {
+                RedBlackTree<Order> tree = new RedBlackTree<>(
+                        (Order a, Order b) -> Long.compare(a.id, b.id));
+                return i -> tree.insert(orders[i]);
+            }));
+            System.out.println(harness.run("insert key", n, n, () -> {
+                RedBlackTree<Order> tree = new RedBlackTree<>((Order order) -> order.id);
+                return i -> tree.insert(orders[i]);
+            }));
+
+            RedBlackTree<ById> wrapped = new RedBlackTree<>();
+            RedBlackTree<Order> compared = new RedBlackTree<>(
+                    (Order a, Order b) -> Long.compare(a.id, b.id));
+            RedBlackTree<Order> keyed = new RedBlackTree<>((Order order) -> order.id);
+            for (Order order : orders) {
+                wrapped.insert(new ById(order));
+                compared.insert(order);
+                keyed.insert(order);
+            }
+            System.out.println(harness.run("contains wrapper", n, n,
+                    () -> i -> BenchmarkHarness.consume(wrapped.contains(new ById(orders[i])))));
+            System.out.println(harness.run("contains comparator", n, n,
+                    () -> i -> BenchmarkHarness.consume(compared.contains(orders[i]))));
+            System.out.println(harness.run("contains key", n, n,
+                    () -> i -> BenchmarkHarness.consume(keyed.contains(orders[i]))));
+        }
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a mixed read/write workload from several threads against a shared collection for a fixed
+ * time and reports the combined throughput. Used by the multi-threaded benchmarks, which the
+ * single-threaded BenchmarkHarness can't measure.
+ */
+public class ConcurrentWorkload {
+
+    /**
+     * The operations the workload calls on the collection under test.
+     */
+    public interface Target {
+        boolean contains(Long key);
+
+        void insert(Long key);
+
+        boolean remove(Long key);
+    }
+
+    /**
+     * Returns a target that calls a RedBlackTree under one global lock, which is how a tree is
+     * shared between threads without a concurrent implementation.
+     *
+     * @param tree the tree to guard
+     * @return the guarded target
+     */
+    public static Target globallyLocked(RedBlackTree<Long> tree) {
+        Object lock = new Object();
+        return new Target() {
+            @Override
+            public boolean contains(Long key) {
+                synchronized (lock) {
+                    return tree.contains(key);
+                }
+            }
+
+            @Override
+            public void insert(Long key) {
+                synchronized (lock) {
+                    tree.insert(key);
+                }
+            }
+
+            @Override
+            public boolean remove(Long key) {
+                synchronized (lock) {
+                    return tree.remove(key);
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs the workload. Every operation picks a uniformly random key; reads call contains, and
+     * writes alternate between insert and remove so the collection keeps about the same size.
+     *
+     * @param target         the collection under test
+     * @param keys           the keys operations pick from, boxed in advance
+     * @param threads        the number of threads running operations
+     * @param readPercent    the percentage of operations that are reads
+     * @param durationMillis how long the threads run
+     * @return the number of operations all threads completed per second
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static double run(Target target, Long[] keys, int threads, int readPercent,
+                             long durationMillis) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(threads);
+        long[] counts = new long[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                boolean insertNext = true;
+                started.countDown();
+                while (running.get()) {
+                    Long key = keys[random.nextInt(keys.length)];
+                    if (random.nextInt(100) < readPercent) {
+                        BenchmarkHarness.consume(target.contains(key));
+                    } else if (insertNext) {
+                        target.insert(key);
+                        insertNext = false;
+                    } else {
+                        BenchmarkHarness.consume(target.remove(key));
+                        insertNext = true;
+                    }
+                    ops++;
+                }
+                counts[id] = ops;
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        started.await();
+        long start = System.nanoTime();
+        Thread.sleep(durationMillis);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total * 1e9 / elapsed;
+    }
+}
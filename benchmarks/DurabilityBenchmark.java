@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures what each DurableRedBlackTree.Durability level costs per insert, next to a plain
+ * RedBlackTree. Every iteration inserts ops random keys into a tree opened in a fresh directory,
+ * so the log grows from empty; the per-operation latency columns show the forced writes of SYNC.
+ * Run it with dir= pointing at the storage device of interest, since the temporary directory may
+ * be in memory.
+ *
+ * java -cp out DurabilityBenchmark ops=1e5 dir=/var/tmp
+ *
+ * Recognized arguments are ops, syncOps, interval, dir, warmup and iterations. SYNC inserts only
+ * syncOps keys per iteration, as every one of them waits for the device.
+ */
+public class DurabilityBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int ops = 100_000;
+        int syncOps = 2_000;
+        long interval = 10;
+        Path dir = null;
+        int warmup = 2;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "ops":
+                    ops = (int) Double.parseDouble(parts[1]);
+                    break;
+                case "syncOps":
+                    syncOps = (int) Double.parseDouble(parts[1]);
+                    break;
+                case "interval":
+                    interval = Long.parseLong(parts[1]);
+                    break;
+                case "dir":
+                    dir = Path.of(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        Random random = new Random(42);
+        Long[] keys = new Long[ops];
+        for (int i = 0; i < ops; i++) {
+            keys[i] = random.nextLong();
+        }
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        System.out.println(harness.run("RedBlackTree", ops, ops, () -> {
+            RedBlackTree<Long> tree = new RedBlackTree<>();
+            return i -> tree.insert(keys[i]);
+        }));
+        Path root = dir == null ? Files.createTempDirectory("wal")
+                : Files.createTempDirectory(dir, "wal");
+        try {
+            for (DurableRedBlackTree.Durability durability : DurableRedBlackTree.Durability.values()) {
+                List<DurableRedBlackTree<Long>> opened = new ArrayList<>();
+                long groupCommitMillis = interval;
+                try {
+                    System.out.println(harness.run("durable " + durability, ops,
+                            durability == DurableRedBlackTree.Durability.SYNC ? syncOps : ops,
+                            () -> {
+                                DurableRedBlackTree<Long> tree = open(root, opened.size(),
+                                        durability, groupCommitMillis);
+                                opened.add(tree);
+                                return i -> tree.insert(keys[i]);
+                            }));
+                } finally {
+                    for (DurableRedBlackTree<Long> tree : opened) {
+                        tree.close();
+                    }
+                }
+            }
+        } finally {
+            try (java.util.stream.Stream<Path> files = Files.walk(root)) {
+                for (Path file : (Iterable<Path>) files.sorted(java.util.Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens an empty tree in a new subdirectory of root.
+     */
+    private static DurableRedBlackTree<Long> open(Path root, int number,
+                                                  DurableRedBlackTree.Durability durability,
+                                                  long groupCommitMillis) {
+        try {
+            return DurableRedBlackTree.open(root.resolve(durability + "-" + number),
+                    FixedWidthCodec.LONG, durability, groupCommitMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Compares lookups through a BinarySearchTree.Cursor with contains on the same RedBlackTree and
+ * with TreeSet.contains, on traces of increasing locality. The tree holds the even numbers below
+ * 2n and every trace looks up as many even as odd values:
+ * - sequential walks through the key space in ascending order,
+ * - near steps from each key to a random one at most 64 positions away,
+ * - random looks up uniformly random keys, where a finger can't help.
+ *
+ * java -Xmx8g -cp out FingerSearchBenchmark sizes=1e4,1e6
+ *
+ * Recognized arguments are sizes, warmup and iterations.
+ */
+public class FingerSearchBenchmark {
+
+    // number of lookups per iteration
+    private static final int LOOKUPS = 1_000_000;
+    // largest distance, in positions, between two consecutive lookups of the near trace
+    private static final int NEAR_DISTANCE = 64;
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(10_000, 1_000_000);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            Long[] values = new Long[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = 2L * i;
+            }
+            RedBlackTree<Long> tree = RedBlackTree.fromSorted(values);
+            TreeSet<Long> set = new TreeSet<>(List.of(values));
+            Random random = new Random(42);
+            for (String trace : new String[] {"sequential", "near", "random"}) {
+                Long[] keys = new Long[LOOKUPS];
+                long position = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    switch (trace) {
+                        case "sequential":
+                            position = i % (2L * n);
+                            break;
+                        case "near":
+                            long step = random.nextInt(2 * NEAR_DISTANCE + 1) - NEAR_DISTANCE;
+                            position = Math.floorMod(position + step, 2L * n);
+                            break;
+                        default:
+                            position = random.nextInt(2 * n);
+                    }
+                    keys[i] = position;
+                }
+                System.out.println(harness.run("cursor " + trace, n, LOOKUPS, () -> {
+                    BinarySearchTree<Long>.Cursor cursor = tree.cursor();
+                    return i -> BenchmarkHarness.consume(cursor.contains(keys[i]));
+                }));
+                System.out.println(harness.run("contains " + trace, n, LOOKUPS,
+                        () -> i -> BenchmarkHarness.consume(tree.contains(keys[i]))));
+                System.out.println(harness.run("TreeSet " + trace, n, LOOKUPS,
+                        () -> i -> BenchmarkHarness.consume(set.contains(keys[i]))));
+            }
+        }
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
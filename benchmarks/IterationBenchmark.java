@@ -0,0 +1,74 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Measures full in-order traversals of a RedBlackTree: the iterator, sequential and parallel
+ * streams, and toInOrderString (the only traversal before the tree was Iterable), with iteration
+ * over a TreeMap's keys for reference. Each operation traverses the whole tree, so ops/s is
+ * traversals per second.
+ *
+ * java -Xmx8g -cp out IterationBenchmark sizes=1e6,1e7
+ *
+ * Recognized arguments are sizes, warmup and iterations.
+ */
+public class IterationBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        sizes.add((int) Double.parseDouble(value));
+                    }
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            long[] raw = KeyStreams.generate(KeyStreams.Distribution.RANDOM, n, 42);
+            RedBlackTree<Long> tree = new RedBlackTree<>();
+            TreeMap<Long, Boolean> map = new TreeMap<>();
+            for (long key : raw) {
+                tree.insert(key);
+                map.put(key, Boolean.TRUE);
+            }
+            System.out.println(harness.run("iterator RedBlackTree", n, 1, () -> i -> {
+                long sum = 0;
+                for (long value : tree) {
+                    sum += value;
+                }
+                BenchmarkHarness.consume(sum);
+            }));
+            System.out.println(harness.run("stream RedBlackTree", n, 1, () -> i ->
+                    BenchmarkHarness.consume(tree.stream().mapToLong(Long::longValue).sum())));
+            System.out.println(harness.run("parallelStream RedBlackTree", n, 1, () -> i ->
+                    BenchmarkHarness.consume(tree.parallelStream().mapToLong(Long::longValue).sum())));
+            System.out.println(harness.run("toInOrderString RedBlackTree", n, 1, () -> i ->
+                    BenchmarkHarness.consume(tree.root.toInOrderString().length())));
+            System.out.println(harness.run("keySet iterator TreeMap", n, 1, () -> i -> {
+                long sum = 0;
+                for (long value : map.keySet()) {
+                    sum += value;
+                }
+                BenchmarkHarness.consume(sum);
+            }));
+        }
+    }
+}
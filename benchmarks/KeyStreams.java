@@ -0,0 +1,126 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates the key streams used by the benchmarks. A stream is first generated as an array of
+ * long values following one of the distributions, and then turned into the boxed key type the tree
+ * is benchmarked with. All keys are created before measuring, so the allocation figures of a
+ * benchmark only show what the data structure itself allocates.
+ */
+public class KeyStreams {
+
+    /**
+     * The orders and frequencies in which keys are produced.
+     */
+    public enum Distribution {
+        // 0, 1, 2, ..., n - 1
+        SEQUENTIAL,
+        // uniformly random keys drawn from a range four times larger than the stream
+        RANDOM,
+        // zipfian distributed ranks (theta = 0.99), so a few keys repeat very often
+        ZIPFIAN,
+        // the keys of RANDOM, sorted ascending: sorted input with gaps between keys
+        SORTED
+    }
+
+    /**
+     * The key types the benchmarks are run with.
+     */
+    public enum KeyType {
+        INTEGER, LONG, STRING
+    }
+
+    // skew of the zipfian distribution, the value YCSB uses by default
+    private static final double ZIPFIAN_THETA = 0.99;
+
+    /**
+     * Generates n raw keys following the given distribution.
+     *
+     * @param distribution the distribution of the keys
+     * @param n            the number of keys in the stream
+     * @param seed         the seed of the random generator, so runs can be repeated
+     * @return the generated keys in stream order
+     */
+    public static long[] generate(Distribution distribution, int n, long seed) {
+        Random random = new Random(seed);
+        long[] keys = new long[n];
+        switch (distribution) {
+            case SEQUENTIAL:
+                for (int i = 0; i < n; i++) {
+                    keys[i] = i;
+                }
+                break;
+            case RANDOM:
+                for (int i = 0; i < n; i++) {
+                    keys[i] = (long) (random.nextDouble() * 4.0 * n);
+                }
+                break;
+            case ZIPFIAN:
+                fillZipfian(keys, random);
+                break;
+            case SORTED:
+                for (int i = 0; i < n; i++) {
+                    keys[i] = (long) (random.nextDouble() * 4.0 * n);
+                }
+                Arrays.sort(keys);
+                break;
+            default:
+                throw new IllegalArgumentException(distribution.toString());
+        }
+        return keys;
+    }
+
+    /**
+     * Fills keys with zipfian distributed ranks in [0, keys.length), using the generator from Gray
+     * et al., "Quickly Generating Billion-Record Synthetic Databases" (as also used by YCSB).
+     */
+    private static void fillZipfian(long[] keys, Random random) {
+        int n = keys.length;
+        double zetaN = 0;
+        for (int i = 1; i <= n; i++) {
+            zetaN += 1.0 / Math.pow(i, ZIPFIAN_THETA);
+        }
+        double zeta2 = 1.0 + 1.0 / Math.pow(2, ZIPFIAN_THETA);
+        double alpha = 1.0 / (1.0 - ZIPFIAN_THETA);
+        double eta = (1 - Math.pow(2.0 / n, 1 - ZIPFIAN_THETA)) / (1 - zeta2 / zetaN);
+        for (int i = 0; i < n; i++) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1.0) {
+                keys[i] = 0;
+            } else if (uz < 1.0 + Math.pow(0.5, ZIPFIAN_THETA)) {
+                keys[i] = 1;
+            } else {
+                keys[i] = Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+            }
+        }
+    }
+
+    /**
+     * Turns raw keys into boxed keys of the given type. String keys are zero-padded so that their
+     * natural ordering matches the ordering of the raw values, which keeps SORTED streams sorted.
+     *
+     * @param raw     the raw keys
+     * @param keyType the type of the boxed keys
+     * @return an array holding one boxed key per raw key
+     */
+    public static Comparable<?>[] box(long[] raw, KeyType keyType) {
+        Comparable<?>[] keys = new Comparable<?>[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            switch (keyType) {
+                case INTEGER:
+                    keys[i] = Integer.valueOf((int) raw[i]);
+                    break;
+                case LONG:
+                    keys[i] = Long.valueOf(raw[i]);
+                    break;
+                case STRING:
+                    keys[i] = String.format("key%012d", raw[i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException(keyType.toString());
+            }
+        }
+        return keys;
+    }
+}
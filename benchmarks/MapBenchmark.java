@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Compares RedBlackTreeMap with java.util.TreeMap, and with the RedBlackTree plus HashMap pair it
+ * replaces, on mixes of get and put over random keys, and on merge used as a counter. Every map
+ * starts out holding n keys, and the operations draw keys from twice that range, so about half of
+ * the puts add a new key.
+ *
+ * java -Xmx8g -cp out MapBenchmark sizes=1e4,1e6 reads=100,90,50,0
+ *
+ * Recognized arguments are sizes, reads (percent of gets), warmup and iterations.
+ */
+public class MapBenchmark {
+
+    // number of operations per iteration
+    private static final int OPERATIONS = 1_000_000;
+
+    /**
+     * The part of the map interface the benchmark uses.
+     */
+    private interface Target {
+        Long get(Long key);
+
+        void put(Long key, Long value);
+
+        void merge(Long key, Long value);
+    }
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(10_000, 1_000_000);
+        List<Integer> reads = List.of(100, 90, 50, 0);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "reads":
+                    reads = parseInts(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            Random random = new Random(42);
+            Long[] initial = new Long[n];
+            for (int i = 0; i < n; i++) {
+                initial[i] = (long) random.nextInt(2 * n);
+            }
+            Long[] keys = new Long[OPERATIONS];
+            boolean[] isRead = new boolean[OPERATIONS];
+            for (String name : new String[] {"RedBlackTreeMap", "TreeMap", "RedBlackTree+HashMap"}) {
+                for (int readPercent : reads) {
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        keys[i] = (long) random.nextInt(2 * n);
+                        isRead[i] = random.nextInt(100) < readPercent;
+                    }
+                    System.out.println(harness.run("get/put " + readPercent + "% get " + name, n,
+                            OPERATIONS, () -> {
+                                Target map = populated(name, initial);
+                                return i -> {
+                                    if (isRead[i]) {
+                                        BenchmarkHarness.consume(map.get(keys[i]) != null);
+                                    } else {
+                                        map.put(keys[i], keys[i]);
+                                    }
+                                };
+                            }));
+                }
+                System.out.println(harness.run("merge counter " + name, n, OPERATIONS, () -> {
+                    Target map = populated(name, initial);
+                    return i -> map.merge(keys[i], 1L);
+                }));
+            }
+        }
+    }
+
+    /**
+     * @return a new map of the named kind holding every initial key mapped to itself
+     */
+    private static Target populated(String name, Long[] initial) {
+        Target map = create(name);
+        for (Long key : initial) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    /**
+     * @return a new empty map of the named kind
+     */
+    private static Target create(String name) {
+        switch (name) {
+            case "RedBlackTreeMap": {
+                RedBlackTreeMap<Long, Long> map = new RedBlackTreeMap<>();
+                return new Target() {
+                    public Long get(Long key) {
+                        return map.get(key);
+                    }
+
+                    public void put(Long key, Long value) {
+                        map.put(key, value);
+                    }
+
+                    public void merge(Long key, Long value) {
+                        map.merge(key, value, Long::sum);
+                    }
+                };
+            }
+            case "TreeMap": {
+                TreeMap<Long, Long> map = new TreeMap<>();
+                return new Target() {
+                    public Long get(Long key) {
+                        return map.get(key);
+                    }
+
+                    public void put(Long key, Long value) {
+                        map.put(key, value);
+                    }
+
+                    public void merge(Long key, Long value) {
+                        map.merge(key, value, Long::sum);
+                    }
+                };
+            }
+            case "RedBlackTree+HashMap": {
+                // the ordered index and the payloads are kept in two separate structures
+                RedBlackTree<Long> index = new RedBlackTree<>();
+                HashMap<Long, Long> payloads = new HashMap<>();
+                return new Target() {
+                    public Long get(Long key) {
+                        return payloads.get(key);
+                    }
+
+                    public void put(Long key, Long value) {
+                        index.insert(key);
+                        payloads.put(key, value);
+                    }
+
+                    public void merge(Long key, Long value) {
+                        index.insert(key);
+                        payloads.merge(key, value, Long::sum);
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("unknown map " + name);
+        }
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
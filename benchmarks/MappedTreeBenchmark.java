@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares restarting with a MappedRedBlackTree against rebuilding an on-heap RedBlackTree from
+ * its keys. The startup figures are the time until the first lookup can be answered: reopening
+ * the mapped file versus inserting every key again. Lookup throughput and latency are measured
+ * afterwards on both trees. The file is written once before measuring, so the operating system's
+ * page cache is usually warm; drop it between runs for truly cold figures.
+ *
+ * java -Xmx8g -cp out MappedTreeBenchmark sizes=1e6,1e7 dir=/tmp
+ *
+ * Recognized arguments are sizes, dir (where the tree file is written), warmup and iterations.
+ */
+public class MappedTreeBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        Path dir = Path.of(System.getProperty("java.io.tmpdir"));
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        sizes.add((int) Double.parseDouble(value));
+                    }
+                    break;
+                case "dir":
+                    dir = Path.of(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        List<String> startups = new ArrayList<>();
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            Comparable[] keys = KeyStreams.box(
+                    KeyStreams.generate(KeyStreams.Distribution.RANDOM, n, 42),
+                    KeyStreams.KeyType.LONG);
+            Path file = Files.createTempFile(dir, "rbt", ".map");
+            try {
+                // write the file once, as a previous run of the service would have
+                try (MappedRedBlackTree<Long> tree = MappedRedBlackTree.open(file, FixedWidthCodec.LONG)) {
+                    for (Comparable key : keys) {
+                        tree.insert((Long) key);
+                    }
+                }
+
+                // startup: reopen the file versus rebuild on the heap, until one lookup is answered
+                long start = System.nanoTime();
+                MappedRedBlackTree<Long> mapped = MappedRedBlackTree.open(file, FixedWidthCodec.LONG);
+                BenchmarkHarness.consume(mapped.contains(keys[0]));
+                long openNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                RedBlackTree<Long> rebuilt = new RedBlackTree<>();
+                for (Comparable key : keys) {
+                    rebuilt.insert(key);
+                }
+                BenchmarkHarness.consume(rebuilt.contains(keys[0]));
+                long rebuildNanos = System.nanoTime() - start;
+                startups.add(String.format("%-48s %12d %14.2f", "reopen MappedRedBlackTree", n,
+                        openNanos / 1e6));
+                startups.add(String.format("%-48s %12d %14.2f", "rebuild RedBlackTree", n,
+                        rebuildNanos / 1e6));
+
+                System.out.println(harness.run("contains MappedRedBlackTree", n, n,
+                        () -> i -> BenchmarkHarness.consume(mapped.contains(keys[i]))));
+                System.out.println(harness.run("contains RedBlackTree", n, n,
+                        () -> i -> BenchmarkHarness.consume(rebuilt.contains(keys[i]))));
+                mapped.close();
+            } finally {
+                Files.delete(file);
+            }
+        }
+        System.out.println();
+        System.out.println(String.format("%-48s %12s %14s", "startup", "n", "ms"));
+        startups.forEach(System.out::println);
+    }
+}
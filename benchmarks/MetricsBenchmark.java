@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+
+/**
+ * Measures what TreeMetrics cost on the insert path: inserts with metrics off, with
+ * TreeStatistics, and with JfrTreeMetrics both while no recording runs and while one records
+ * every insert event. Metrics off is the configuration that has to match the tree without
+ * instrumentation; running this class against a build without TreeMetrics gives the baseline for
+ * that row. After the table, the counters of one TreeStatistics run per distribution are printed.
+ *
+ * java -cp out MetricsBenchmark sizes=1e6 dists=random,sequential
+ *
+ * Recognized arguments are sizes, dists, warmup and iterations.
+ */
+public class MetricsBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        List<KeyStreams.Distribution> dists = List.of(KeyStreams.Distribution.RANDOM,
+                KeyStreams.Distribution.SEQUENTIAL, KeyStreams.Distribution.ZIPFIAN);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "dists":
+                    dists = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        dists.add(KeyStreams.Distribution.valueOf(value.toUpperCase()));
+                    }
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        List<String> statistics = new ArrayList<>();
+        // JFR metrics created by the fixtures, closed after each distribution
+        List<JfrTreeMetrics> registered = new ArrayList<>();
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            for (KeyStreams.Distribution dist : dists) {
+                Comparable[] keys = KeyStreams.box(KeyStreams.generate(dist, n, 42),
+                        KeyStreams.KeyType.LONG);
+                System.out.println(harness.run("metrics off " + dist, n, n, () -> {
+                    RedBlackTree tree = new RedBlackTree();
+                    return i -> tree.insert(keys[i]);
+                }));
+                System.out.println(harness.run("TreeStatistics " + dist, n, n, () -> {
+                    RedBlackTree tree = new RedBlackTree();
+                    tree.setMetrics(new TreeStatistics());
+                    return i -> tree.insert(keys[i]);
+                }));
+                System.out.println(harness.run("JFR, not recording " + dist, n, n, () -> {
+                    RedBlackTree tree = new RedBlackTree();
+                    JfrTreeMetrics metrics = new JfrTreeMetrics(tree);
+                    registered.add(metrics);
+                    tree.setMetrics(metrics);
+                    return i -> tree.insert(keys[i]);
+                }));
+                try (Recording recording = new Recording()) {
+                    recording.enable("TreeInsert");
+                    recording.start();
+                    System.out.println(harness.run("JFR, recording " + dist, n, n, () -> {
+                        RedBlackTree tree = new RedBlackTree();
+                        JfrTreeMetrics metrics = new JfrTreeMetrics(tree);
+                        registered.add(metrics);
+                        tree.setMetrics(metrics);
+                        return i -> tree.insert(keys[i]);
+                    }));
+                }
+                registered.forEach(JfrTreeMetrics::close);
+                registered.clear();
+                RedBlackTree tree = new RedBlackTree();
+                TreeStatistics counters = new TreeStatistics();
+                tree.setMetrics(counters);
+                for (Comparable key : keys) {
+                    tree.insert(key);
+                }
+                statistics.add(String.format("n=%d %s: %s height=%d", n, dist, counters,
+                        tree.height()));
+            }
+        }
+        statistics.forEach(System.out::println);
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
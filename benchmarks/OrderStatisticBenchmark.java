@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the order statistic queries of RedBlackTree: select at the 50th and 99th percentile
+ * and at random positions, rank of random keys and countInRange over random windows. For
+ * comparison, the percentile is also found the way it had to be found before subtree sizes
+ * existed, by iterating over the values in ascending order until the position is reached.
+ *
+ * java -Xmx8g -cp out OrderStatisticBenchmark sizes=1e7
+ *
+ * Recognized arguments are sizes, warmup and iterations.
+ */
+public class OrderStatisticBenchmark {
+
+    // number of random queries per iteration
+    private static final int QUERIES = 1_000_000;
+    // total number of values the iterating baseline may visit per iteration
+    private static final long WALK_BUDGET = 100_000_000L;
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(10_000_000);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            // RANDOM keys are spread over [0, 4n); sorting them allows the O(n) bulk build
+            long[] raw = KeyStreams.generate(KeyStreams.Distribution.RANDOM, n, 42);
+            RedBlackTree<Long> tree = RedBlackTree.fromSorted(boxSorted(raw));
+            int size = tree.size();
+            int p50 = size / 2;
+            int p99 = (int) (size * 0.99);
+            Random random = new Random(1);
+            int[] positions = new int[QUERIES];
+            Long[] lows = new Long[QUERIES];
+            Long[] highs = new Long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                positions[i] = random.nextInt(size);
+                lows[i] = (long) random.nextInt(4 * n);
+                highs[i] = lows[i] + random.nextInt(4 * n - lows[i].intValue() + 1);
+            }
+            System.out.println(harness.run("select p50", n, QUERIES,
+                    () -> i -> BenchmarkHarness.consume(tree.select(p50))));
+            System.out.println(harness.run("select p99", n, QUERIES,
+                    () -> i -> BenchmarkHarness.consume(tree.select(p99))));
+            System.out.println(harness.run("select random", n, QUERIES,
+                    () -> i -> BenchmarkHarness.consume(tree.select(positions[i]))));
+            System.out.println(harness.run("rank random", n, QUERIES,
+                    () -> i -> BenchmarkHarness.consume(tree.rank(lows[i]))));
+            System.out.println(harness.run("countInRange random", n, QUERIES,
+                    () -> i -> BenchmarkHarness.consume(tree.countInRange(lows[i], highs[i]))));
+            // the baseline visits p50 values per query, so only a few queries fit in the budget
+            int walks = (int) Math.max(1, Math.min(QUERIES, WALK_BUDGET / Math.max(1, p50)));
+            System.out.println(harness.run("iterate to p50", n, walks,
+                    () -> i -> BenchmarkHarness.consume(walk(tree, p50))));
+        }
+    }
+
+    /**
+     * Finds the value at position index by iterating from the smallest value.
+     */
+    private static long walk(RedBlackTree<Long> tree, int index) {
+        Iterator<Long> iterator = tree.iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    /**
+     * @return the raw keys sorted and boxed
+     */
+    private static Long[] boxSorted(long[] raw) {
+        long[] copy = raw.clone();
+        Arrays.sort(copy);
+        Long[] boxed = new Long[copy.length];
+        for (int i = 0; i < copy.length; i++) {
+            boxed[i] = copy[i];
+        }
+        return boxed;
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures what PersistentRedBlackTree snapshots cost compared with deep copying a RedBlackTree,
+ * which is what readers needing a consistent view did before.
+ *
+ * The memory part keeps every version of a tree that receives one insert after another and
+ * reports the retained bytes per version, next to the bytes of one deep copy.
+ *
+ * The throughput part runs a writer thread that keeps inserting random keys while the measured
+ * thread reads: every READS_PER_SNAPSHOT lookups it takes a new snapshot (or a deep copy of the
+ * RedBlackTree under its lock) and looks keys up in that view.
+ *
+ * java -Xmx8g -cp out PersistentTreeBenchmark sizes=1e4,1e6
+ *
+ * Recognized arguments are sizes, versions, warmup and iterations.
+ */
+public class PersistentTreeBenchmark {
+
+    // number of lookups per iteration
+    private static final int LOOKUPS = 1_000_000;
+    // lookups done in one view before the reader takes the next one
+    private static final int READS_PER_SNAPSHOT = 1_000;
+    // total number of values the deep copy reader may copy per iteration
+    private static final long COPY_BUDGET = 50_000_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        List<Integer> sizes = List.of(10_000, 1_000_000);
+        int versions = 100_000;
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "versions":
+                    versions = (int) Double.parseDouble(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        for (int n : sizes) {
+            Random random = new Random(42);
+            Long[] initial = new Long[n];
+            for (int i = 0; i < n; i++) {
+                initial[i] = (long) random.nextInt(4 * n);
+            }
+            Long[] extra = new Long[versions];
+            for (int i = 0; i < versions; i++) {
+                extra[i] = (long) random.nextInt(4 * n);
+            }
+            PersistentRedBlackTree<Long> persistent = new PersistentRedBlackTree<>();
+            RedBlackTree<Long> mutable = new RedBlackTree<>();
+            for (Long key : initial) {
+                persistent.insert(key);
+                mutable.insert(key);
+            }
+
+            // memory: the initial tree is already allocated, so only new versions are counted
+            long perVersion = BenchmarkHarness.retainedBytes(() -> {
+                PersistentRedBlackTree<Long> tree = persistent.snapshot();
+                List<PersistentRedBlackTree<Long>> kept = new ArrayList<>();
+                for (Long key : extra) {
+                    tree.insert(key);
+                    kept.add(tree.snapshot());
+                }
+                return kept;
+            }) / extra.length;
+            long deepCopy = BenchmarkHarness.retainedBytes(
+                    () -> RedBlackTree.fromSorted(mutable.iterator()));
+            System.out.println(String.format("n=%d: %d bytes per persistent version, "
+                    + "%d bytes per deep copy", n, perVersion, deepCopy));
+
+            // throughput: lookups in views taken while a writer keeps inserting
+            Long[] lookups = new Long[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                lookups[i] = (long) random.nextInt(4 * n);
+            }
+            // every deep copy costs O(n), so large trees get fewer lookups
+            int copyLookups = (int) Math.min(LOOKUPS,
+                    READS_PER_SNAPSHOT * Math.max(1, COPY_BUDGET / n));
+            BenchmarkHarness.printHeader();
+            System.out.println(whileWriting(() -> persistent.insert((long) random.nextInt(4 * n)),
+                    () -> harness.run("snapshot reads, writer running", n, LOOKUPS, () -> {
+                        PersistentRedBlackTree<Long>[] view = new PersistentRedBlackTree[1];
+                        return i -> {
+                            if (i % READS_PER_SNAPSHOT == 0) {
+                                view[0] = persistent.snapshot();
+                            }
+                            BenchmarkHarness.consume(view[0].contains(lookups[i]));
+                        };
+                    })));
+            System.out.println(whileWriting(() -> {
+                synchronized (mutable) {
+                    mutable.insert((long) random.nextInt(4 * n));
+                }
+            }, () -> harness.run("deep copy reads, writer running", n, copyLookups, () -> {
+                RedBlackTree<Long>[] view = new RedBlackTree[1];
+                return i -> {
+                    if (i % READS_PER_SNAPSHOT == 0) {
+                        synchronized (mutable) {
+                            view[0] = RedBlackTree.fromSorted(mutable.iterator());
+                        }
+                    }
+                    BenchmarkHarness.consume(view[0].contains(lookups[i]));
+                };
+            })));
+        }
+    }
+
+    /**
+     * Runs measurement while another thread keeps calling write, and stops that thread after.
+     *
+     * @return the result of measurement
+     */
+    private static BenchmarkHarness.Result whileWriting(Runnable write,
+            java.util.function.Supplier<BenchmarkHarness.Result> measurement)
+            throws InterruptedException {
+        java.util.concurrent.atomic.AtomicBoolean running =
+                new java.util.concurrent.atomic.AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            while (running.get()) {
+                write.run();
+            }
+        });
+        writer.start();
+        try {
+            return measurement.get();
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
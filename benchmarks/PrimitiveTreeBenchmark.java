@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares IntRedBlackTree and LongRedBlackTree with RedBlackTree holding boxed Integer and Long
+ * keys: insert and contains throughput and allocation, and the heap retained per stored key.
+ *
+ * java -Xmx8g -cp out PrimitiveTreeBenchmark sizes=1e6,1e7
+ *
+ * Recognized arguments are sizes, dists (sequential, random, zipfian, sorted), warmup and
+ * iterations.
+ */
+public class PrimitiveTreeBenchmark {
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(100_000, 1_000_000);
+        List<KeyStreams.Distribution> dists = List.of(KeyStreams.Distribution.RANDOM);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        sizes.add((int) Double.parseDouble(value));
+                    }
+                    break;
+                case "dists":
+                    dists = new ArrayList<>();
+                    for (String value : parts[1].split(",")) {
+                        dists.add(KeyStreams.Distribution.valueOf(value.toUpperCase()));
+                    }
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        List<String> footprints = new ArrayList<>();
+        for (int n : sizes) {
+            for (KeyStreams.Distribution dist : dists) {
+                long[] raw = KeyStreams.generate(dist, n, 42);
+                int[] ints = new int[n];
+                for (int i = 0; i < n; i++) {
+                    ints[i] = (int) raw[i];
+                }
+                Comparable[] boxedInts = KeyStreams.box(raw, KeyStreams.KeyType.INTEGER);
+                Comparable[] boxedLongs = KeyStreams.box(raw, KeyStreams.KeyType.LONG);
+
+                // throughput and allocation
+                System.out.println(harness.run("insert IntRedBlackTree/" + dist, n, n, () -> {
+                    IntRedBlackTree tree = new IntRedBlackTree();
+                    return i -> tree.insert(ints[i]);
+                }));
+                System.out.println(harness.run("insert LongRedBlackTree/" + dist, n, n, () -> {
+                    LongRedBlackTree tree = new LongRedBlackTree();
+                    return i -> tree.insert(raw[i]);
+                }));
+                System.out.println(harness.run("insert RedBlackTree<Integer>/" + dist, n, n, () -> {
+                    RedBlackTree<Integer> tree = new RedBlackTree<>();
+                    return i -> tree.insert(boxedInts[i]);
+                }));
+                System.out.println(harness.run("insert RedBlackTree<Long>/" + dist, n, n, () -> {
+                    RedBlackTree<Long> tree = new RedBlackTree<>();
+                    return i -> tree.insert(boxedLongs[i]);
+                }));
+                IntRedBlackTree intTree = buildInt(ints);
+                LongRedBlackTree longTree = buildLong(raw);
+                RedBlackTree<Integer> boxedIntTree = buildBoxed(boxedInts);
+                RedBlackTree<Long> boxedLongTree = buildBoxed(boxedLongs);
+                System.out.println(harness.run("contains IntRedBlackTree/" + dist, n, n,
+                        () -> i -> BenchmarkHarness.consume(intTree.contains(ints[i]))));
+                System.out.println(harness.run("contains LongRedBlackTree/" + dist, n, n,
+                        () -> i -> BenchmarkHarness.consume(longTree.contains(raw[i]))));
+                System.out.println(harness.run("contains RedBlackTree<Integer>/" + dist, n, n,
+                        () -> i -> BenchmarkHarness.consume(boxedIntTree.contains(boxedInts[i]))));
+                System.out.println(harness.run("contains RedBlackTree<Long>/" + dist, n, n,
+                        () -> i -> BenchmarkHarness.consume(boxedLongTree.contains(boxedLongs[i]))));
+
+                // retained heap per stored key; the boxed trees are built from freshly boxed keys
+                // so that the key objects are counted as part of the tree that holds them
+                int stored = intTree.size();
+                footprints.add(footprint("IntRedBlackTree", dist, n, stored,
+                        BenchmarkHarness.retainedBytes(() -> buildInt(ints))));
+                footprints.add(footprint("LongRedBlackTree", dist, n, stored,
+                        BenchmarkHarness.retainedBytes(() -> buildLong(raw))));
+                footprints.add(footprint("RedBlackTree<Integer>", dist, n, stored,
+                        BenchmarkHarness.retainedBytes(() -> buildBoxed(
+                                KeyStreams.box(raw, KeyStreams.KeyType.INTEGER)))));
+                footprints.add(footprint("RedBlackTree<Long>", dist, n, stored,
+                        BenchmarkHarness.retainedBytes(() -> buildBoxed(
+                                KeyStreams.box(raw, KeyStreams.KeyType.LONG)))));
+            }
+        }
+        System.out.println();
+        System.out.println(String.format("%-48s %12s %14s", "footprint", "n", "bytes/key"));
+        footprints.forEach(System.out::println);
+    }
+
+    /**
+     * Formats one line of the footprint table.
+     */
+    private static String footprint(String name, KeyStreams.Distribution dist, int n, int stored,
+                                    long bytes) {
+        return String.format("%-48s %12d %14.1f", name + "/" + dist, n, (double) bytes / stored);
+    }
+
+    private static IntRedBlackTree buildInt(int[] keys) {
+        IntRedBlackTree tree = new IntRedBlackTree();
+        for (int key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    private static LongRedBlackTree buildLong(long[] keys) {
+        LongRedBlackTree tree = new LongRedBlackTree();
+        for (long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    private static <T extends Comparable<T>> RedBlackTree<T> buildBoxed(Comparable[] keys) {
+        RedBlackTree<T> tree = new RedBlackTree<>();
+        for (Comparable key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+}
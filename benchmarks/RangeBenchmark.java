@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Compares RedBlackTree.range and ceiling with TreeSet.subSet and ceiling. Every range operation
+ * sums the values of a random window [low, low + width) of the key space, so the cost is the
+ * O(log n) search for the first value plus a scan over the values in the window.
+ *
+ * java -Xmx8g -cp out RangeBenchmark sizes=1e6 widths=10,1000,100000
+ *
+ * Recognized arguments are sizes, widths, warmup and iterations.
+ */
+public class RangeBenchmark {
+
+    // number of random windows scanned per iteration
+    private static final int QUERIES = 100_000;
+
+    public static void main(String[] args) {
+        List<Integer> sizes = List.of(1_000_000);
+        List<Integer> widths = List.of(10, 1_000, 100_000);
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "widths":
+                    widths = parseInts(parts[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            // RANDOM keys are spread over [0, 4n)
+            long[] raw = KeyStreams.generate(KeyStreams.Distribution.RANDOM, n, 42);
+            RedBlackTree<Long> tree = new RedBlackTree<>();
+            TreeSet<Long> set = new TreeSet<>();
+            for (long key : raw) {
+                tree.insert(key);
+                set.add(key);
+            }
+            Random random = new Random(1);
+            Long[] lows = new Long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                lows[i] = (long) random.nextInt(4 * n);
+            }
+            System.out.println(harness.run("ceiling RedBlackTree", n, QUERIES,
+                    () -> i -> BenchmarkHarness.consume(tree.ceiling(lows[i]) != null)));
+            System.out.println(harness.run("ceiling TreeSet", n, QUERIES,
+                    () -> i -> BenchmarkHarness.consume(set.ceiling(lows[i]) != null)));
+            for (int width : widths) {
+                Long[] highs = new Long[QUERIES];
+                for (int i = 0; i < QUERIES; i++) {
+                    highs[i] = lows[i] + width;
+                }
+                int queries = (int) Math.max(100, Math.min(QUERIES, 100_000_000L / width));
+                System.out.println(harness.run("range width " + width + " RedBlackTree", n, queries,
+                        () -> i -> {
+                            long sum = 0;
+                            for (long value : tree.range(lows[i], highs[i])) {
+                                sum += value;
+                            }
+                            BenchmarkHarness.consume(sum);
+                        }));
+                System.out.println(harness.run("subSet width " + width + " TreeSet", n, queries,
+                        () -> i -> {
+                            long sum = 0;
+                            for (long value : set.subSet(lows[i], highs[i])) {
+                                sum += value;
+                            }
+                            BenchmarkHarness.consume(sum);
+                        }));
+            }
+        }
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares writing a RedBlackTree of n Long keys to a file and reading it back in three formats:
+ * - binary is RedBlackTree.writeTo / readFrom with FixedWidthCodec.LONG,
+ * - java serializes the keys as a Long[] through ObjectOutputStream and rebuilds the tree with
+ *   fromSorted, since RedBlackTree itself is not Serializable,
+ * - string writes toInOrderString of the root as UTF-8 and parses it back, inserting each key.
+ * Every format is dumped and restored once per iteration; the table shows the fastest iteration
+ * and the size of the file.
+ *
+ * java -Xmx16g -cp out SerializationBenchmark sizes=1e6,5e7
+ *
+ * Recognized arguments are sizes, formats and iterations.
+ */
+public class SerializationBenchmark {
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        List<Integer> sizes = List.of(1_000_000, 50_000_000);
+        List<String> formats = List.of("binary", "java", "string");
+        int iterations = 3;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = parseInts(parts[1]);
+                    break;
+                case "formats":
+                    formats = List.of(parts[1].split(","));
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        System.out.println(String.format("%-10s %12s %12s %12s %14s",
+                "format", "n", "dump ms", "restore ms", "file bytes"));
+        Path file = Files.createTempFile("tree", ".dump");
+        try {
+            for (int n : sizes) {
+                // spread the keys out so they don't all share their high bytes
+                Long[] keys = new Long[n];
+                for (int i = 0; i < n; i++) {
+                    keys[i] = 7919L * i;
+                }
+                RedBlackTree<Long> tree = RedBlackTree.fromSorted(keys);
+                keys = null;
+                for (String format : formats) {
+                    long dump = Long.MAX_VALUE;
+                    long restore = Long.MAX_VALUE;
+                    for (int i = 0; i < iterations; i++) {
+                        long start = System.nanoTime();
+                        dump(format, tree, file);
+                        dump = Math.min(dump, System.nanoTime() - start);
+                        start = System.nanoTime();
+                        RedBlackTree<Long> restored = restore(format, file);
+                        restore = Math.min(restore, System.nanoTime() - start);
+                        if (restored.size() != n) {
+                            throw new IllegalStateException(format + " restored "
+                                    + restored.size() + " keys instead of " + n);
+                        }
+                    }
+                    System.out.println(String.format("%-10s %12d %12.1f %12.1f %14d", format, n,
+                            dump / 1e6, restore / 1e6, Files.size(file)));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes tree to file in the given format.
+     */
+    private static void dump(String format, RedBlackTree<Long> tree, Path file)
+            throws IOException {
+        switch (format) {
+            case "binary":
+                tree.writeTo(file, FixedWidthCodec.LONG);
+                break;
+            case "java":
+                Long[] keys = new Long[tree.size()];
+                int i = 0;
+                for (Long key : tree) {
+                    keys[i++] = key;
+                }
+                try (ObjectOutputStream out = new ObjectOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(file)))) {
+                    out.writeObject(keys);
+                }
+                break;
+            case "string":
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    out.write(tree.root.toInOrderString());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unknown format " + format);
+        }
+    }
+
+    /**
+     * Reads a tree that dump wrote to file in the given format.
+     */
+    private static RedBlackTree<Long> restore(String format, Path file)
+            throws IOException, ClassNotFoundException {
+        switch (format) {
+            case "binary":
+                return RedBlackTree.readFrom(file, FixedWidthCodec.LONG);
+            case "java":
+                try (ObjectInputStream in = new ObjectInputStream(
+                        new BufferedInputStream(Files.newInputStream(file)))) {
+                    return RedBlackTree.fromSorted((Long[]) in.readObject());
+                }
+            case "string":
+                RedBlackTree<Long> tree = new RedBlackTree<>();
+                try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    // the string looks like "[ 1(b), 2(r), 3(b) ]"
+                    String text = in.readLine();
+                    for (String token : text.substring(2, text.length() - 2).split(", ")) {
+                        tree.insert(Long.parseLong(token.substring(0, token.length() - 3)));
+                    }
+                }
+                return tree;
+            default:
+                throw new IllegalArgumentException("unknown format " + format);
+        }
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add((int) Double.parseDouble(value));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares ShardedRedBlackTree with a RedBlackTree behind one global lock, from 1 to 64 threads
+ * with write-only and 50/50 read/write mixes. The shard boundaries come from a sample of 10000
+ * keys drawn from the key range, and both trees start with half of the key range inserted.
+ *
+ * java -cp out ShardedTreeBenchmark n=1e6 shards=16 threads=1,2,4,8,16,32,64 millis=2000
+ *
+ * Recognized arguments are n, shards, threads, mixes (read percentages) and millis (per
+ * measurement).
+ */
+public class ShardedTreeBenchmark {
+
+    // number of keys the shard boundaries are chosen from
+    private static final int SAMPLE_SIZE = 10000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = 1_000_000;
+        int shards = 16;
+        List<Integer> threadCounts = List.of(1, 2, 4, 8, 16, 32, 64);
+        List<Integer> mixes = List.of(0, 50);
+        long millis = 2000;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            switch (parts[0]) {
+                case "n":
+                    n = (int) Double.parseDouble(parts[1]);
+                    break;
+                case "shards":
+                    shards = Integer.parseInt(parts[1]);
+                    break;
+                case "threads":
+                    threadCounts = parseInts(parts[1]);
+                    break;
+                case "mixes":
+                    mixes = parseInts(parts[1]);
+                    break;
+                case "millis":
+                    millis = Long.parseLong(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        // keys range over twice the initial size, so about half of all lookups hit
+        Long[] keys = new Long[2 * n];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) i;
+        }
+        Random random = new Random(42);
+        List<Long> sample = new ArrayList<>();
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            sample.add(keys[random.nextInt(keys.length)]);
+        }
+        System.out.println(String.format("%-48s %8s %8s %14s", "benchmark", "threads", "read%",
+                "ops/s"));
+        for (int readPercent : mixes) {
+            for (int threads : threadCounts) {
+                ShardedRedBlackTree<Long> sharded = new ShardedRedBlackTree<>(sample, shards);
+                RedBlackTree<Long> locked = new RedBlackTree<>();
+                for (int i = 0; i < keys.length; i += 2) {
+                    sharded.insert(keys[i]);
+                    locked.insert(keys[i]);
+                }
+                ConcurrentWorkload.Target striped = new ConcurrentWorkload.Target() {
+                    @Override
+                    public boolean contains(Long key) {
+                        return sharded.contains(key);
+                    }
+
+                    @Override
+                    public void insert(Long key) {
+                        sharded.insert(key);
+                    }
+
+                    @Override
+                    public boolean remove(Long key) {
+                        return sharded.remove(key);
+                    }
+                };
+                print("ShardedRedBlackTree/" + sharded.shardCount(), threads, readPercent,
+                        ConcurrentWorkload.run(striped, keys, threads, readPercent, millis));
+                print("RedBlackTree + global lock", threads, readPercent,
+                        ConcurrentWorkload.run(ConcurrentWorkload.globallyLocked(locked), keys,
+                                threads, readPercent, millis));
+            }
+        }
+    }
+
+    private static void print(String name, int threads, int readPercent, double opsPerSecond) {
+        System.out.println(String.format("%-48s %8d %8d %14.0f", name, threads, readPercent,
+                opsPerSecond));
+    }
+
+    private static List<Integer> parseInts(String values) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            result.add(Integer.parseInt(value));
+        }
+        return result;
+    }
+}
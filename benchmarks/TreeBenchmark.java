@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks insert, contains and size of RedBlackTree, BinarySearchTree and java.util.TreeMap
+ * across key types, key distributions and collection sizes. Every parameter can be narrowed down
+ * on the command line, for example:
+ *
+ * java -Xmx8g -cp out TreeBenchmark sizes=1000,1000000 impls=rbt,treemap keys=long
+ *
+ * Recognized arguments are sizes, impls (rbt, rbt_multiset, bst, treemap), dists (sequential, random, zipfian,
+ * sorted), keys (integer, long, string), benchmarks (insert, contains, size), warmup and
+ * iterations. BinarySearchTree does not balance, so on sequential and sorted streams its height
+ * equals n: those rows show the quadratic cost of the degenerate case. insertHelper and contains
+ * walk down the tree in a loop, so a long chain costs time but no stack.
+ */
+public class TreeBenchmark {
+
+    /**
+     * The collections being compared.
+     */
+    public enum Implementation {
+        RBT(RedBlackTree::new),
+        RBT_MULTISET(() -> new RedBlackTree<>(true)),
+        BST(BinarySearchTree::new),
+        TREEMAP(TreeMapCollection::new);
+
+        // creates a new empty collection of this implementation
+        private final Supplier<SortedCollection> factory;
+
+        Implementation(Supplier<SortedCollection> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * @return a new empty collection of this implementation
+         */
+        public SortedCollection create() {
+            return factory.get();
+        }
+    }
+
+    // total number of size() calls one size benchmark aims for, split across the collection size
+    private static final int SIZE_CALL_BUDGET = 10_000_000;
+
+    public static void main(String[] args) {
+        List<Integer> sizes = Arrays.asList(1_000, 10_000, 100_000, 1_000_000);
+        List<Implementation> impls = Arrays.asList(Implementation.values());
+        List<KeyStreams.Distribution> dists = Arrays.asList(KeyStreams.Distribution.values());
+        List<KeyStreams.KeyType> keyTypes = Arrays.asList(KeyStreams.KeyType.values());
+        List<String> benchmarks = Arrays.asList("insert", "contains", "size");
+        int warmup = 3;
+        int iterations = 5;
+        // parse name=value arguments, overriding the defaults above
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("expected name=value but got " + arg);
+            }
+            String[] values = parts[1].split(",");
+            switch (parts[0]) {
+                case "sizes":
+                    sizes = new ArrayList<>();
+                    for (String value : values) {
+                        sizes.add((int) Double.parseDouble(value));
+                    }
+                    break;
+                case "impls":
+                    impls = new ArrayList<>();
+                    for (String value : values) {
+                        impls.add(Implementation.valueOf(value.toUpperCase()));
+                    }
+                    break;
+                case "dists":
+                    dists = new ArrayList<>();
+                    for (String value : values) {
+                        dists.add(KeyStreams.Distribution.valueOf(value.toUpperCase()));
+                    }
+                    break;
+                case "keys":
+                    keyTypes = new ArrayList<>();
+                    for (String value : values) {
+                        keyTypes.add(KeyStreams.KeyType.valueOf(value.toUpperCase()));
+                    }
+                    break;
+                case "benchmarks":
+                    benchmarks = Arrays.asList(values);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(parts[1]);
+                    break;
+                case "iterations":
+                    iterations = Integer.parseInt(parts[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + parts[0]);
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations);
+        BenchmarkHarness.printHeader();
+        for (int n : sizes) {
+            for (KeyStreams.Distribution dist : dists) {
+                long[] raw = KeyStreams.generate(dist, n, 42);
+                for (KeyStreams.KeyType keyType : keyTypes) {
+                    Comparable[] keys = KeyStreams.box(raw, keyType);
+                    for (Implementation impl : impls) {
+                        String suffix = impl + "/" + keyType + "/" + dist;
+                        for (String benchmark : benchmarks) {
+                            System.out.println(run(harness, benchmark, suffix, impl, keys));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one of the benchmarks on one collection and key stream.
+     */
+    private static BenchmarkHarness.Result run(BenchmarkHarness harness, String benchmark,
+                                               String suffix, Implementation impl,
+                                               Comparable[] keys) {
+        int n = keys.length;
+        String label = benchmark + " " + suffix;
+        switch (benchmark) {
+            case "insert":
+                // every iteration inserts the whole stream into a new empty collection
+                return harness.run(label, n, n, () -> {
+                    SortedCollection tree = impl.create();
+                    return i -> tree.insert(keys[i]);
+                });
+            case "contains":
+                // looks up every key of the stream in a collection built from that stream
+                return harness.run(label, n, n, populated(impl, keys, tree ->
+                        i -> BenchmarkHarness.consume(tree.contains(keys[i]))));
+            case "size":
+                // size() doesn't depend on the key, so spread a fixed call budget over sizes
+                int calls = Math.max(1_000, Math.min(n, SIZE_CALL_BUDGET / n));
+                return harness.run(label, n, calls, populated(impl, keys, tree ->
+                        i -> BenchmarkHarness.consume(tree.size())));
+            default:
+                throw new IllegalArgumentException("unknown benchmark " + benchmark);
+        }
+    }
+
+    /**
+     * Returns a fixture that builds a collection holding all keys once and then keeps handing
+     * out operations on that same collection, as lookups don't change it.
+     */
+    private static Supplier<BenchmarkHarness.Operation> populated(
+            Implementation impl, Comparable[] keys,
+            Function<SortedCollection, BenchmarkHarness.Operation> operation) {
+        SortedCollection[] tree = new SortedCollection[1];
+        return () -> {
+            if (tree[0] == null) {
+                tree[0] = impl.create();
+                for (Comparable key : keys) {
+                    tree[0].insert(key);
+                }
+            }
+            return operation.apply(tree[0]);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.TreeMap;
+
+/**
+ * Adapts java.util.TreeMap to the SortedCollection interface, so the JDK's red-black tree can be
+ * benchmarked through exactly the same calls as RedBlackTree and BinarySearchTree. Like those
+ * trees, inserting a value that is already stored leaves the collection unchanged.
+ */
+public class TreeMapCollection<T extends Comparable<T>> implements SortedCollection<T> {
+
+    // the values are stored as the keys of this map
+    private final TreeMap<T, Boolean> map = new TreeMap<>();
+
+    @Override
+    public void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        map.put(data, Boolean.TRUE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Comparable<T> data) {
+        return data != null && map.containsKey((T) data);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+}
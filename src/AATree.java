@@ -0,0 +1,76 @@
+/**
+ * AA tree (Andersson): a red black tree whose red nodes are always right children. In the usual
+ * description every node has a level, and a red node is one on the same level as its parent,
+ * reached over a horizontal link. Only two repairs exist, applied at each node on the way back
+ * up from a new node: skew rotates a red left child to the right, and split rotates the middle
+ * of two red right children in a row up, which lifts it one level and so turns it red. The
+ * repair stops once two levels in a row needed neither, because no node further up looks deeper
+ * than its grandchildren.
+ *
+ * The tree stores levels as the colors of the same RBTNode objects RedBlackTree uses and
+ * rotates them with BSTRotation, so everything BinarySearchTree offers works on it unchanged.
+ * It has no remove.
+ * */
+public class AATree<T extends Comparable<T>> extends LeaningRedBlackTree<T> {
+
+    /**
+     * Constructor to create a new empty tree that stores every value once.
+     */
+    public AATree() {
+        super(false);
+    }
+
+    /**
+     * Constructor to create a new empty tree.
+     *
+     * @param multiset true to count equal values instead of storing them once
+     */
+    public AATree(boolean multiset) {
+        super(multiset);
+    }
+
+    /**
+     * Applies skew and split to node and its ancestors, from the bottom up.
+     *
+     * @param node the parent of the newly inserted node
+     */
+    @Override
+    protected void balance(RBTNode<T> node) {
+        // number of levels in a row that needed no repair
+        int unchanged = 0;
+        while (node != null && unchanged < 2) {
+            boolean changed = false;
+            // skew: a horizontal left link is turned into a horizontal right link
+            RBTNode<T> left = node.getLeft();
+            if (isRed(left)) {
+                rotate(left, node);
+                left.isRed = node.isRed;
+                node.isRed = true;
+                node = left;
+                changed = true;
+            }
+            // split: the middle of three nodes on one level moves up to the level of node's
+            // parent, leaving node and its right neighbor as its children one level below
+            RBTNode<T> right = node.getRight();
+            if (isRed(right) && isRed(right.getRight())) {
+                rotate(right, node);
+                right.isRed = true;
+                right.getRight().isRed = false;
+                node = right;
+                changed = true;
+            }
+            unchanged = changed ? 0 : unchanged + 1;
+            node = node.getUp();
+        }
+    }
+
+    /**
+     * Checks that no left child of node is red, which would be a horizontal left link.
+     */
+    @Override
+    protected void checkLeaning(RBTNode<T> node) {
+        if (isRed(node.getLeft())) {
+            throw new IllegalStateException("horizontal left link below " + node);
+        }
+    }
+}
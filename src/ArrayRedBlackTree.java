@@ -0,0 +1,490 @@
+import java.util.Arrays;
+
+/**
+ * Red black tree that stores its nodes in parallel arrays instead of RBTNode objects. A node is
+ * an index into these arrays: data[i] holds its value, left[i], right[i] and up[i] hold the
+ * indices of its children and parent, and bit i of red records its color. Index 0 (NIL) plays
+ * the role of a null reference. Slots of removed nodes are kept on a free list and reused by
+ * later inserts.
+ *
+ * Compared to RedBlackTree this stores a node in about 16 bytes instead of 32, keeps neighboring
+ * nodes close together in memory, and leaves the garbage collector a handful of arrays to trace
+ * instead of one object per node. Rotations and repairs only update int arrays.
+ * */
+public class ArrayRedBlackTree<T extends Comparable<T>> implements SortedCollection<T> {
+
+    // index that stands for a missing node; slot 0 of the arrays never holds a node
+    private static final int NIL = 0;
+    // number of nodes the arrays can hold when no capacity is given
+    private static final int DEFAULT_CAPACITY = 16;
+    // longest arrays this class creates, a little below Integer.MAX_VALUE since some VMs can't
+    // allocate arrays quite that long
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+    // value of every node
+    private Object[] data;
+    // index of every node's left child, or of the next free slot for slots on the free list
+    private int[] left;
+    // index of every node's right child
+    private int[] right;
+    // index of every node's parent
+    private int[] up;
+    // one bit per node, set when the node is red
+    private long[] red;
+
+    // index of the root node, or NIL when the tree is empty
+    protected int root = NIL;
+    // number of values stored in the tree
+    protected int size;
+    // lowest index that has never been used for a node
+    private int nextUnused = 1;
+    // first slot of the list of freed slots, linked through the left array
+    private int freeList = NIL;
+
+    /**
+     * Constructor to create a new empty tree.
+     */
+    public ArrayRedBlackTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to create a new empty tree that can hold initialCapacity values before its
+     * arrays have to grow.
+     *
+     * @param initialCapacity number of values to reserve space for
+     * @throws IllegalArgumentException if initialCapacity is negative, or too large for the
+     *                                  arrays to hold it next to the NIL slot
+     */
+    public ArrayRedBlackTree(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("negative capacity " + initialCapacity);
+        }
+        if (initialCapacity > MAX_LENGTH - 1) {
+            throw new IllegalArgumentException("capacity " + initialCapacity + " is larger than "
+                    + (MAX_LENGTH - 1));
+        }
+        allocate(initialCapacity + 1);
+    }
+
+    /**
+     * Inserts a new data value into the tree, and repairs any red property violation that the new
+     * red node causes. Values that are already stored are not inserted again.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        // if tree is empty then the new node becomes the root
+        if (root == NIL) {
+            root = newNode(data);
+            setRed(root, false);
+            size++;
+            return;
+        }
+        // search down through the tree for the missing child the new node replaces
+        int parent = root;
+        int comparison;
+        while (true) {
+            comparison = data.compareTo(valueOf(parent));
+            // equal data is already stored, so nothing is added
+            if (comparison == 0) {
+                return;
+            }
+            int next = comparison < 0 ? left[parent] : right[parent];
+            if (next == NIL) {
+                break;
+            }
+            parent = next;
+        }
+        int node = newNode(data);
+        up[node] = parent;
+        if (comparison < 0) {
+            left[parent] = node;
+        } else {
+            right[parent] = node;
+        }
+        size++;
+        ensureRedProperty(node);
+        setRed(root, false);
+    }
+
+    /**
+     * Checks if a new red node causes a red property violation by having a red parent, and
+     * repairs this violation and any additional violations that the repair creates higher up in
+     * the tree. Uses the same cases as RedBlackTree.ensureRedProperty.
+     *
+     * @param newRedNode index of a newly inserted red node
+     */
+    protected void ensureRedProperty(int newRedNode) {
+        int parent = up[newRedNode];
+        // a red parent always has a parent, since the root is black
+        while (parent != NIL && isRed(parent)) {
+            int grandParent = up[parent];
+            int aunt = left[grandParent] == parent ? right[grandParent] : left[grandParent];
+            // case 1 where aunt is red: recolor and continue with the grandparent
+            if (isRed(aunt)) {
+                setRed(parent, false);
+                setRed(aunt, false);
+                setRed(grandParent, true);
+                newRedNode = grandParent;
+                parent = up[newRedNode];
+                continue;
+            }
+            // case 3 where the new node is an inner child: rotate it to the outside first
+            if ((left[grandParent] == parent) != (left[parent] == newRedNode)) {
+                rotate(newRedNode, parent);
+                int rotatedDown = parent;
+                parent = newRedNode;
+                newRedNode = rotatedDown;
+            }
+            // case 2 where the new node is an outer child: rotate parent above grandparent
+            rotate(parent, grandParent);
+            setRed(parent, false);
+            setRed(grandParent, true);
+            return;
+        }
+    }
+
+    /**
+     * Check whether data is stored in the tree.
+     *
+     * @param data the value to check for in the tree
+     * @return true if the tree contains data, and false otherwise
+     */
+    @Override
+    public boolean contains(Comparable<T> data) {
+        return data != null && find(data) != NIL;
+    }
+
+    /**
+     * Removes data from the tree and repairs any black property violation that the removal
+     * causes. The slot of the removed node is put on the free list.
+     *
+     * @param data the value to remove
+     * @return true if data was stored in the tree and has been removed, false otherwise
+     */
+    public boolean remove(Comparable<T> data) {
+        if (data == null) {
+            return false;
+        }
+        int node = find(data);
+        if (node == NIL) {
+            return false;
+        }
+        // with two children, move the successor's value up and remove the successor instead
+        if (left[node] != NIL && right[node] != NIL) {
+            int successor = right[node];
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+            this.data[node] = this.data[successor];
+            node = successor;
+        }
+        // node now has at most one child, which takes node's place
+        int child = left[node] != NIL ? left[node] : right[node];
+        int parent = up[node];
+        if (child != NIL) {
+            up[child] = parent;
+        }
+        if (parent == NIL) {
+            root = child;
+        } else if (left[parent] == node) {
+            left[parent] = child;
+        } else {
+            right[parent] = child;
+        }
+        boolean removedBlack = !isRed(node);
+        freeNode(node);
+        size--;
+        // removing a red node never changes the black height of a path
+        if (removedBlack) {
+            if (isRed(child)) {
+                setRed(child, false);
+            } else {
+                ensureBlackProperty(child, parent);
+            }
+        }
+        if (root != NIL) {
+            setRed(root, false);
+        }
+        return true;
+    }
+
+    /**
+     * Repairs a black property violation after a black node was removed: the paths through
+     * doubleBlack (which may be NIL) have one black node less than the other paths through
+     * parent. Uses the same cases as RedBlackTree.ensureBlackProperty.
+     *
+     * @param doubleBlack index of the node that took the removed node's place, or NIL
+     * @param parent      index of the parent of doubleBlack
+     */
+    protected void ensureBlackProperty(int doubleBlack, int parent) {
+        while (parent != NIL && !isRed(doubleBlack)) {
+            boolean isLeft = left[parent] == doubleBlack;
+            int sibling = isLeft ? right[parent] : left[parent];
+            // case 1: red sibling, rotate it up so that doubleBlack gets a black sibling
+            if (isRed(sibling)) {
+                setRed(sibling, false);
+                setRed(parent, true);
+                rotate(sibling, parent);
+                sibling = isLeft ? right[parent] : left[parent];
+            }
+            int outer = isLeft ? right[sibling] : left[sibling];
+            int inner = isLeft ? left[sibling] : right[sibling];
+            // case 2: black sibling with black children, push the problem up to parent
+            if (!isRed(outer) && !isRed(inner)) {
+                setRed(sibling, true);
+                doubleBlack = parent;
+                parent = up[parent];
+                continue;
+            }
+            // case 3: only the inner nephew is red, rotate it into the outer position
+            if (!isRed(outer)) {
+                setRed(inner, false);
+                setRed(sibling, true);
+                rotate(inner, sibling);
+                outer = sibling;
+                sibling = inner;
+            }
+            // case 4: red outer nephew, rotate the sibling up to add a black node on our side
+            setRed(sibling, isRed(parent));
+            setRed(parent, false);
+            setRed(outer, false);
+            rotate(sibling, parent);
+            return;
+        }
+        // a red node (or the root) absorbs the extra black
+        if (doubleBlack != NIL) {
+            setRed(doubleBlack, false);
+        }
+    }
+
+    /**
+     * Rotates child into the position of parent. A left child is rotated right and a right child
+     * is rotated left.
+     *
+     * @param child  index of the node being rotated from child to parent position
+     * @param parent index of the node being rotated from parent to child position
+     */
+    private void rotate(int child, int parent) {
+        int grandParent = up[parent];
+        if (left[parent] == child) {
+            // right rotation: child's right subtree moves over to parent
+            left[parent] = right[child];
+            if (right[child] != NIL) {
+                up[right[child]] = parent;
+            }
+            right[child] = parent;
+        } else {
+            // left rotation: child's left subtree moves over to parent
+            right[parent] = left[child];
+            if (left[child] != NIL) {
+                up[left[child]] = parent;
+            }
+            left[child] = parent;
+        }
+        up[parent] = child;
+        up[child] = grandParent;
+        // child takes parent's place below the grandparent, or as the root
+        if (grandParent == NIL) {
+            root = child;
+        } else if (left[grandParent] == parent) {
+            left[grandParent] = child;
+        } else {
+            right[grandParent] = child;
+        }
+    }
+
+    /**
+     * @return the index of the node holding data, or NIL if data is not stored
+     */
+    private int find(Comparable<T> data) {
+        int current = root;
+        while (current != NIL) {
+            int comparison = data.compareTo(valueOf(current));
+            if (comparison == 0) {
+                return current;
+            }
+            current = comparison < 0 ? left[current] : right[current];
+        }
+        return NIL;
+    }
+
+    /**
+     * @return the value stored in node
+     */
+    @SuppressWarnings("unchecked")
+    private T valueOf(int node) {
+        return (T) data[node];
+    }
+
+    /**
+     * @return true if node is red, false if it is black or NIL
+     */
+    private boolean isRed(int node) {
+        return (red[node >>> 6] & (1L << node)) != 0;
+    }
+
+    /**
+     * Colors node red or black. NIL always stays black.
+     */
+    private void setRed(int node, boolean isRed) {
+        if (isRed && node != NIL) {
+            red[node >>> 6] |= 1L << node;
+        } else {
+            red[node >>> 6] &= ~(1L << node);
+        }
+    }
+
+    /**
+     * Takes a slot from the free list, or the next unused slot, and turns it into a red node
+     * without children or parent that holds value.
+     *
+     * @return the index of the new node
+     */
+    private int newNode(T value) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left[node];
+        } else {
+            if (nextUnused == data.length) {
+                grow();
+            }
+            node = nextUnused++;
+        }
+        data[node] = value;
+        left[node] = NIL;
+        right[node] = NIL;
+        up[node] = NIL;
+        setRed(node, true);
+        return node;
+    }
+
+    /**
+     * Clears the slot of a removed node and puts it on the free list.
+     */
+    private void freeNode(int node) {
+        data[node] = null;
+        right[node] = NIL;
+        up[node] = NIL;
+        setRed(node, false);
+        left[node] = freeList;
+        freeList = node;
+    }
+
+    /**
+     * Doubles the length of all arrays.
+     */
+    private void grow() {
+        int length = data.length;
+        if (length >= MAX_LENGTH) {
+            throw new IllegalStateException("tree is full");
+        }
+        int newLength = (int) Math.min(MAX_LENGTH, 2L * length);
+        data = Arrays.copyOf(data, newLength);
+        left = Arrays.copyOf(left, newLength);
+        right = Arrays.copyOf(right, newLength);
+        up = Arrays.copyOf(up, newLength);
+        red = Arrays.copyOf(red, (newLength + 63) >>> 6);
+    }
+
+    /**
+     * Creates arrays with room for length slots, including the NIL slot.
+     */
+    private void allocate(int length) {
+        data = new Object[length];
+        left = new int[length];
+        right = new int[length];
+        up = new int[length];
+        red = new long[(length + 63) >>> 6];
+    }
+
+    /**
+     * @return the number of values in the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains no values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * Removes all values from the tree. The arrays keep their capacity.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(data, null);
+        Arrays.fill(red, 0L);
+        root = NIL;
+        size = 0;
+        nextUnused = 1;
+        freeList = NIL;
+    }
+
+    /**
+     * @return the number of slots the arrays have, including the unused slot 0
+     */
+    int capacity() {
+        return data.length;
+    }
+
+    /**
+     * Checks the red-black tree invariants of the whole tree: ordered keys, consistent parent
+     * indices, a black root, no red node with a red child and the same number of black nodes on
+     * every path from the root to NIL.
+     *
+     * @throws IllegalStateException if one of the invariants does not hold
+     */
+    protected void checkInvariants() {
+        if (isRed(root) || (root != NIL && up[root] != NIL)) {
+            throw new IllegalStateException("root must be black and have no parent");
+        }
+        int[] count = new int[1];
+        checkInvariants(root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("size is " + size + " but tree holds " + count[0]);
+        }
+    }
+
+    /**
+     * Checks the invariants of the subtree rooted at node, whose values must lie strictly between
+     * low and high (either of which may be null for no bound), and counts its nodes.
+     *
+     * @return the number of black nodes on every path from node to NIL
+     */
+    private int checkInvariants(int node, T low, T high, int[] count) {
+        if (node == NIL) {
+            return 0;
+        }
+        count[0]++;
+        T value = valueOf(node);
+        if ((low != null && value.compareTo(low) <= 0) || (high != null && value.compareTo(high) >= 0)) {
+            throw new IllegalStateException("out of order: " + value);
+        }
+        if ((left[node] != NIL && up[left[node]] != node) || (right[node] != NIL && up[right[node]] != node)) {
+            throw new IllegalStateException("broken parent index below " + value);
+        }
+        if (isRed(node) && (isRed(left[node]) || isRed(right[node]))) {
+            throw new IllegalStateException("red node with red child: " + value);
+        }
+        int leftBlackHeight = checkInvariants(left[node], low, value, count);
+        int rightBlackHeight = checkInvariants(right[node], value, high, count);
+        if (leftBlackHeight != rightBlackHeight) {
+            throw new IllegalStateException("unequal black heights below " + value);
+        }
+        return leftBlackHeight + (isRed(node) ? 0 : 1);
+    }
+}
@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ArrayRedBlackTree.
+ * */
+public class ArrayRedBlackTreeTest {
+
+    /**
+     * Tester that applies random inserts and removes, comparing against java.util.TreeSet and
+     * checking the red-black invariants after every mutation
+     * */
+    @Test
+    public void testRandomMutations() {
+        java.util.Random random = new java.util.Random(6);
+        ArrayRedBlackTree<Integer> test1 = new ArrayRedBlackTree<>();
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), test1.remove(key));
+            } else {
+                expected.add(key);
+                test1.insert(key);
+            }
+            test1.checkInvariants();
+        }
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(expected.contains(key), test1.contains(key));
+        }
+    }
+
+    /**
+     * Tester that checks that slots of removed nodes are reused instead of growing the arrays
+     * */
+    @Test
+    public void testSlotReuse() {
+        ArrayRedBlackTree<String> test2 = new ArrayRedBlackTree<>(4);
+        test2.insert("B");
+        test2.insert("A");
+        test2.insert("D");
+        test2.insert("C");
+        int capacity = test2.capacity();
+        assertTrue(test2.remove("A"));
+        assertTrue(test2.remove("D"));
+        test2.insert("E");
+        test2.insert("F");
+        assertEquals(capacity, test2.capacity());
+        assertEquals(4, test2.size());
+        test2.checkInvariants();
+        test2.clear();
+        assertTrue(test2.isEmpty());
+        assertFalse(test2.contains("B"));
+    }
+
+    /**
+     * Tester that checks that capacities the arrays can't hold are rejected before anything is
+     * allocated
+     * */
+    @Test
+    public void testCapacityOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ArrayRedBlackTree<Integer>(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArrayRedBlackTree<Integer>(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArrayRedBlackTree<Integer>(Integer.MAX_VALUE - 8));
+        assertEquals(1, new ArrayRedBlackTree<Integer>(0).capacity());
+    }
+}
@@ -0,0 +1,631 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * B+ tree implementing the SortedCollection interface. Instead of one value per node, every node
+ * holds a sorted array of up to fanout values (leaves) or fanout children (inner nodes), so a
+ * search touches about log(n) / log(fanout) nodes instead of log2(n) and scans neighboring keys
+ * that share cache lines. All values live in the leaves, which are linked from left to right,
+ * so iteration and range scans walk along the leaf level without going back up the tree.
+ *
+ * An inner node with k keys has k + 1 children, and child i holds the values from keys[i - 1]
+ * (inclusive) up to keys[i] (exclusive). Every node except the root is at least half full, which
+ * inserts keep by splitting full nodes and removes by borrowing from or merging with a sibling.
+ * Nodes have no parent references: insert and remove remember the path they descended instead.
+ * */
+public class BPlusTree<T extends Comparable<T>> implements SortedCollection<T>, Iterable<T> {
+
+    // number of values per leaf and children per inner node when no fanout is given
+    private static final int DEFAULT_FANOUT = 64;
+    // a tree of at least half full nodes with fanout 3 and 2^31 values is less than 64 levels high
+    private static final int MAX_HEIGHT = 64;
+
+    /**
+     * A node with its sorted keys. Both arrays have room for one entry more than a node may
+     * keep, so an insert can add it first and split the overfull node afterwards.
+     */
+    private static class Node {
+        final Object[] keys;
+        // number of keys in use
+        int count;
+
+        Node(int capacity) {
+            this.keys = new Object[capacity];
+        }
+    }
+
+    /**
+     * A leaf, holding values as its keys.
+     */
+    private static final class Leaf extends Node {
+        // the leaf holding the next larger values, or null for the last leaf
+        Leaf next;
+
+        Leaf(int fanout) {
+            super(fanout + 1);
+        }
+    }
+
+    /**
+     * An inner node, holding count keys that separate count + 1 children.
+     */
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        Inner(int fanout) {
+            super(fanout);
+            this.children = new Node[fanout + 1];
+        }
+    }
+
+    // the maximum number of values per leaf and of children per inner node
+    private final int fanout;
+    // whether nodes are searched by scanning their keys in order instead of by binary search
+    private final boolean linearSearch;
+
+    // root node, or null when the tree is empty
+    private Node root;
+    // number of levels of the tree
+    private int height;
+    // number of values stored in the tree
+    private int size;
+    // number of changes made to the tree, so iterators can detect concurrent changes
+    private int modCount;
+
+    // inner nodes and child indices of the path the last insert or remove descended
+    private final Inner[] path = new Inner[MAX_HEIGHT];
+    private final int[] pathIndex = new int[MAX_HEIGHT];
+
+    /**
+     * Constructor to create a new empty tree with 64 values per leaf, searched by binary search.
+     */
+    public BPlusTree() {
+        this(DEFAULT_FANOUT, false);
+    }
+
+    /**
+     * Constructor to create a new empty tree.
+     *
+     * @param fanout       the maximum number of values per leaf and children per inner node
+     * @param linearSearch true to scan the keys of a node in order, which does fewer branch
+     *                     mispredictions than binary search on small nodes
+     * @throws IllegalArgumentException if fanout is less than 3
+     */
+    public BPlusTree(int fanout, boolean linearSearch) {
+        if (fanout < 3) {
+            throw new IllegalArgumentException("fanout must be at least 3: " + fanout);
+        }
+        this.fanout = fanout;
+        this.linearSearch = linearSearch;
+    }
+
+    /**
+     * Searches the first count keys of node for data.
+     *
+     * @return the index of data if it is stored, otherwise -(insertion point) - 1, as
+     * Arrays.binarySearch does
+     */
+    @SuppressWarnings("unchecked")
+    private int search(Node node, T data) {
+        Object[] keys = node.keys;
+        if (linearSearch) {
+            for (int i = 0; i < node.count; i++) {
+                int comparison = data.compareTo((T) keys[i]);
+                if (comparison <= 0) {
+                    return comparison == 0 ? i : -i - 1;
+                }
+            }
+            return -node.count - 1;
+        }
+        int low = 0;
+        int high = node.count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = data.compareTo((T) keys[middle]);
+            if (comparison == 0) {
+                return middle;
+            }
+            if (comparison < 0) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * @return the index of the child of inner whose range covers data
+     */
+    private int childIndex(Inner inner, T data) {
+        int index = search(inner, data);
+        // a key equal to data starts the range of the child right of it
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Walks down from the root to the leaf whose range covers data, remembering the inner nodes
+     * and child indices on the way in path and pathIndex.
+     *
+     * @return the leaf, whose depth is height - 1
+     */
+    private Leaf descend(T data) {
+        Node node = root;
+        for (int depth = 0; node instanceof Inner; depth++) {
+            Inner inner = (Inner) node;
+            int index = childIndex(inner, data);
+            path[depth] = inner;
+            pathIndex[depth] = index;
+            node = inner.children[index];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Inserts a new data value into the tree. Values that are already stored are not inserted
+     * again. A leaf that overflows is split in two halves, which adds a key to its parent and
+     * may split the parent in turn; a split root makes the tree one level higher.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        if (root == null) {
+            Leaf leaf = new Leaf(fanout);
+            leaf.keys[0] = data;
+            leaf.count = 1;
+            root = leaf;
+            height = 1;
+            size = 1;
+            modCount++;
+            return;
+        }
+        Leaf leaf = descend(data);
+        int index = search(leaf, data);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.count - index);
+        leaf.keys[index] = data;
+        leaf.count++;
+        size++;
+        modCount++;
+        if (leaf.count <= fanout) {
+            return;
+        }
+        // split the leaf, the right half starts with the separator that goes up
+        Leaf right = new Leaf(fanout);
+        int keep = leaf.count / 2;
+        right.count = leaf.count - keep;
+        System.arraycopy(leaf.keys, keep, right.keys, 0, right.count);
+        Arrays.fill(leaf.keys, keep, leaf.count, null);
+        leaf.count = keep;
+        right.next = leaf.next;
+        leaf.next = right;
+        Object separator = right.keys[0];
+        Node newNode = right;
+        // add the separator and new node to the parents, splitting every parent that overflows
+        for (int depth = height - 2; depth >= 0; depth--) {
+            Inner parent = path[depth];
+            int position = pathIndex[depth];
+            System.arraycopy(parent.keys, position, parent.keys, position + 1,
+                    parent.count - position);
+            System.arraycopy(parent.children, position + 1, parent.children, position + 2,
+                    parent.count - position);
+            parent.keys[position] = separator;
+            parent.children[position + 1] = newNode;
+            parent.count++;
+            if (parent.count < fanout) {
+                return;
+            }
+            // the middle key moves up, the keys and children right of it move to a new node
+            Inner sibling = new Inner(fanout);
+            int middle = parent.count / 2;
+            separator = parent.keys[middle];
+            sibling.count = parent.count - middle - 1;
+            System.arraycopy(parent.keys, middle + 1, sibling.keys, 0, sibling.count);
+            System.arraycopy(parent.children, middle + 1, sibling.children, 0, sibling.count + 1);
+            Arrays.fill(parent.keys, middle, parent.count, null);
+            Arrays.fill(parent.children, middle + 1, parent.count + 1, null);
+            parent.count = middle;
+            newNode = sibling;
+        }
+        // the root was split, so a new root holds the two halves
+        Inner newRoot = new Inner(fanout);
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = newNode;
+        newRoot.count = 1;
+        root = newRoot;
+        height++;
+    }
+
+    /**
+     * Check whether data is stored in the tree.
+     *
+     * @param data the value to check for
+     * @return true if the tree contains data, and false otherwise
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Comparable<T> data) {
+        if (data == null || root == null) {
+            return false;
+        }
+        T value = (T) data;
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[childIndex((Inner) node, value)];
+        }
+        return search(node, value) >= 0;
+    }
+
+    /**
+     * Removes data from the tree. A leaf that drops below half full borrows a value from a
+     * sibling that has one to spare, or is merged with a sibling otherwise, which removes a key
+     * from the parent and may make the parent borrow or merge in turn. A root left with a single
+     * child is replaced by that child.
+     *
+     * @param data the value to remove
+     * @return true if data was stored and has been removed, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(Comparable<T> data) {
+        if (data == null || root == null) {
+            return false;
+        }
+        Leaf leaf = descend((T) data);
+        int index = search(leaf, (T) data);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.count - index - 1);
+        leaf.keys[--leaf.count] = null;
+        size--;
+        modCount++;
+        Node node = leaf;
+        for (int depth = height - 2; depth >= 0 && node.count < minimum(node); depth--) {
+            Inner parent = path[depth];
+            int position = pathIndex[depth];
+            Node left = position > 0 ? parent.children[position - 1] : null;
+            Node right = position < parent.count ? parent.children[position + 1] : null;
+            if (left != null && left.count > minimum(left)) {
+                borrowFromLeft(parent, position);
+                return true;
+            }
+            if (right != null && right.count > minimum(right)) {
+                borrowFromRight(parent, position);
+                return true;
+            }
+            merge(parent, left != null ? position - 1 : position);
+            node = parent;
+        }
+        if (root.count == 0) {
+            // an empty leaf root empties the tree, an inner root without keys has one child left
+            root = root instanceof Inner ? ((Inner) root).children[0] : null;
+            height--;
+        }
+        return true;
+    }
+
+    /**
+     * @return the smallest number of keys node may keep when it is not the root
+     */
+    private int minimum(Node node) {
+        return node instanceof Leaf ? fanout / 2 : (fanout + 1) / 2 - 1;
+    }
+
+    /**
+     * Moves the last entry of the left sibling of parent's child at position into that child.
+     */
+    private void borrowFromLeft(Inner parent, int position) {
+        Node node = parent.children[position];
+        Node left = parent.children[position - 1];
+        System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+        if (node instanceof Leaf) {
+            // the borrowed value becomes the first value of node and the new separator
+            node.keys[0] = left.keys[left.count - 1];
+            parent.keys[position - 1] = node.keys[0];
+        } else {
+            // the separator comes down in front of node, the last key of left goes up instead
+            Inner inner = (Inner) node;
+            Inner leftInner = (Inner) left;
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.count + 1);
+            inner.keys[0] = parent.keys[position - 1];
+            inner.children[0] = leftInner.children[left.count];
+            leftInner.children[left.count] = null;
+            parent.keys[position - 1] = left.keys[left.count - 1];
+        }
+        left.keys[--left.count] = null;
+        node.count++;
+    }
+
+    /**
+     * Moves the first entry of the right sibling of parent's child at position into that child.
+     */
+    private void borrowFromRight(Inner parent, int position) {
+        Node node = parent.children[position];
+        Node right = parent.children[position + 1];
+        if (node instanceof Leaf) {
+            node.keys[node.count] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            right.keys[right.count - 1] = null;
+            parent.keys[position] = right.keys[0];
+        } else {
+            // the separator comes down at the end of node, the first key of right goes up
+            Inner inner = (Inner) node;
+            Inner rightInner = (Inner) right;
+            inner.keys[node.count] = parent.keys[position];
+            inner.children[node.count + 1] = rightInner.children[0];
+            parent.keys[position] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            System.arraycopy(rightInner.children, 1, rightInner.children, 0, right.count);
+            right.keys[right.count - 1] = null;
+            rightInner.children[right.count] = null;
+        }
+        right.count--;
+        node.count++;
+    }
+
+    /**
+     * Merges parent's child at position + 1 into the child at position, and removes the key
+     * separating them from parent.
+     */
+    private void merge(Inner parent, int position) {
+        Node left = parent.children[position];
+        Node right = parent.children[position + 1];
+        if (left instanceof Leaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+            left.count += right.count;
+            ((Leaf) left).next = ((Leaf) right).next;
+        } else {
+            // the separator comes down between the keys of the two nodes
+            left.keys[left.count] = parent.keys[position];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+            System.arraycopy(((Inner) right).children, 0, ((Inner) left).children,
+                    left.count + 1, right.count + 1);
+            left.count += right.count + 1;
+        }
+        System.arraycopy(parent.keys, position + 1, parent.keys, position,
+                parent.count - position - 1);
+        System.arraycopy(parent.children, position + 2, parent.children, position + 1,
+                parent.count - position - 1);
+        parent.count--;
+        parent.keys[parent.count] = null;
+        parent.children[parent.count + 1] = null;
+    }
+
+    /**
+     * @return the number of values in the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains no values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values from the tree.
+     */
+    @Override
+    public void clear() {
+        root = null;
+        height = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return the number of levels of the tree, 0 for an empty tree
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return the smallest value in the tree
+     * @throws NoSuchElementException if the tree is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T first() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return (T) firstLeaf().keys[0];
+    }
+
+    /**
+     * @return the largest value in the tree
+     * @throws NoSuchElementException if the tree is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T last() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[node.count];
+        }
+        return (T) node.keys[node.count - 1];
+    }
+
+    /**
+     * @return the leftmost leaf, or null if the tree is empty
+     */
+    private Leaf firstLeaf() {
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[0];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Returns an iterator over the values in ascending order, which walks along the linked
+     * leaves. It fails with a ConcurrentModificationException when the tree is changed while
+     * iterating.
+     *
+     * @return an iterator over the values of this tree
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new LeafIterator(firstLeaf(), 0, null);
+    }
+
+    /**
+     * Returns the values from low (inclusive) to high (exclusive) in ascending order. The scan
+     * searches for low once and then walks along the leaves, reading each of them in one pass.
+     *
+     * @param low  the smallest value that can be included
+     * @param high the first value that is excluded
+     * @return an Iterable over the values in [low, high) in ascending order
+     * @throws NullPointerException     if low or high is null
+     * @throws IllegalArgumentException if low is greater than high
+     */
+    public Iterable<T> range(T low, T high) {
+        if (low == null || high == null) {
+            throw new NullPointerException();
+        }
+        if (low.compareTo(high) > 0) {
+            throw new IllegalArgumentException("low is greater than high");
+        }
+        return () -> {
+            if (root == null) {
+                return new LeafIterator(null, 0, high);
+            }
+            Node node = root;
+            while (node instanceof Inner) {
+                node = ((Inner) node).children[childIndex((Inner) node, low)];
+            }
+            int index = search(node, low);
+            return new LeafIterator((Leaf) node, index >= 0 ? index : -index - 1, high);
+        };
+    }
+
+    /**
+     * Iterator over the values from position index of leaf on, up to but excluding end.
+     */
+    private class LeafIterator implements Iterator<T> {
+        private Leaf leaf;
+        private int index;
+        // values from end on are not returned; null when the iterator runs to the largest value
+        private final T end;
+        private final int expectedModCount = modCount;
+
+        LeafIterator(Leaf leaf, int index, T end) {
+            this.leaf = leaf;
+            this.index = index;
+            this.end = end;
+            skipExhaustedLeaf();
+        }
+
+        /**
+         * Moves on to the next leaf when the current one has no values left.
+         */
+        private void skipExhaustedLeaf() {
+            if (leaf != null && index == leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            // a remove since the iterator was created may have shrunk the leaf below index
+            return leaf != null && index < leaf.count
+                    && (end == null || ((T) leaf.keys[index]).compareTo(end) < 0);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T data = (T) leaf.keys[index++];
+            skipExhaustedLeaf();
+            return data;
+        }
+    }
+
+    /**
+     * Checks the invariants of the whole tree: sorted keys, separators that bound the values of
+     * their children, all leaves on the same level, nodes at least half full except the root,
+     * and a leaf chain that visits size values in ascending order.
+     *
+     * @throws IllegalStateException if one of the invariants does not hold
+     */
+    @SuppressWarnings("unchecked")
+    protected void checkInvariants() {
+        if (root == null) {
+            if (size != 0 || height != 0) {
+                throw new IllegalStateException("empty tree with size " + size);
+            }
+            return;
+        }
+        checkInvariants(root, null, null, 1);
+        int count = 0;
+        T previous = null;
+        for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                if (previous != null && previous.compareTo((T) leaf.keys[i]) >= 0) {
+                    throw new IllegalStateException("leaf chain out of order at " + leaf.keys[i]);
+                }
+                previous = (T) leaf.keys[i];
+                count++;
+            }
+        }
+        if (count != size) {
+            throw new IllegalStateException("size is " + size + " but leaves hold " + count);
+        }
+    }
+
+    /**
+     * Checks the subtree rooted at node, at the given level, whose values must lie from low
+     * (inclusive) to high (exclusive), either of which may be null for no bound.
+     */
+    @SuppressWarnings("unchecked")
+    private void checkInvariants(Node node, T low, T high, int level) {
+        if (node.count > (node instanceof Leaf ? fanout : fanout - 1)
+                || (node != root && node.count < minimum(node))) {
+            throw new IllegalStateException("node with " + node.count + " keys at level " + level);
+        }
+        for (int i = 0; i < node.count; i++) {
+            T key = (T) node.keys[i];
+            if ((low != null && key.compareTo(low) < 0) || (high != null && key.compareTo(high) >= 0)
+                    || (i > 0 && ((T) node.keys[i - 1]).compareTo(key) >= 0)) {
+                throw new IllegalStateException("key out of order: " + key);
+            }
+        }
+        if (node instanceof Leaf) {
+            if (level != height) {
+                throw new IllegalStateException("leaf at level " + level + " of " + height);
+            }
+            return;
+        }
+        Inner inner = (Inner) node;
+        for (int i = 0; i <= inner.count; i++) {
+            checkInvariants(inner.children[i], i == 0 ? low : (T) inner.keys[i - 1],
+                    i == inner.count ? high : (T) inner.keys[i], level + 1);
+        }
+    }
+}
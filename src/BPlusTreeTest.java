@@ -0,0 +1,132 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+/**
+ * Tests for BPlusTree.
+ * */
+public class BPlusTreeTest {
+
+    /**
+     * Tester that inserts ascending, descending and random values into trees of several fanouts
+     * with both search modes, checking the contents against java.util.TreeSet
+     * */
+    @Test
+    public void testInsertAndContains() {
+        java.util.Random random = new java.util.Random(23);
+        for (int fanout : new int[] {3, 4, 5, 16, 64}) {
+            for (boolean linear : new boolean[] {false, true}) {
+                BPlusTree<Integer> test1 = new BPlusTree<>(fanout, linear);
+                java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+                for (int i = 0; i < 3000; i++) {
+                    int value = i < 1000 ? i : i < 2000 ? 5000 - i : random.nextInt(10000);
+                    test1.insert(value);
+                    expected.add(value);
+                }
+                test1.checkInvariants();
+                assertEquals(expected.size(), test1.size());
+                for (int value = -1; value < 10001; value++) {
+                    assertEquals(expected.contains(value), test1.contains(value));
+                }
+                java.util.List<Integer> actual = new java.util.ArrayList<>();
+                test1.forEach(actual::add);
+                assertEquals(new java.util.ArrayList<>(expected), actual);
+                assertEquals(expected.first(), test1.first());
+                assertEquals(expected.last(), test1.last());
+            }
+        }
+    }
+
+    /**
+     * Tester that checks that size counts every value once and ignores values that are already
+     * stored, as RedBlackTree.testSize does
+     * */
+    @Test
+    public void testSize() {
+        BPlusTree<Integer> test2 = new BPlusTree<>(4, false);
+        for (int i = 1; i <= 100; i++) {
+            test2.insert(i);
+        }
+        test2.insert(50);
+        assertEquals(100, test2.size());
+        assertTrue(test2.contains(1) && test2.contains(100));
+        // 100 values in leaves of 2 to 4 values under inner nodes of 2 to 4 children
+        assertTrue(test2.height() >= 4 && test2.height() <= 6);
+        test2.clear();
+        assertEquals(0, test2.size());
+        assertTrue(test2.isEmpty());
+        assertFalse(test2.contains(1));
+        assertThrows(NullPointerException.class, () -> test2.insert(null));
+    }
+
+    /**
+     * Tester that applies random inserts and removes, comparing against java.util.TreeSet and
+     * checking the invariants after every single mutation, as RedBlackTree.testRandomMutations
+     * does
+     * */
+    @Test
+    public void testRandomMutations() {
+        java.util.Random random = new java.util.Random(400);
+        for (int round = 0; round < 20; round++) {
+            BPlusTree<Integer> test3 = new BPlusTree<>(3 + round % 6, round % 2 == 0);
+            java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+            for (int i = 0; i < 2000; i++) {
+                int key = random.nextInt(500);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), test3.remove(key));
+                } else {
+                    expected.add(key);
+                    test3.insert(key);
+                }
+                test3.checkInvariants();
+                assertEquals(expected.size(), test3.size());
+            }
+            // drain the tree to nothing
+            for (int key : new java.util.ArrayList<>(expected)) {
+                assertTrue(test3.remove(key));
+            }
+            test3.checkInvariants();
+            assertTrue(test3.isEmpty());
+            assertEquals(0, test3.height());
+        }
+    }
+
+    /**
+     * Tester that checks range scans across leaf boundaries, including empty ranges and ranges
+     * whose bounds are not stored, and iterators that fail once the tree changes under them
+     * */
+    @Test
+    public void testRange() {
+        BPlusTree<Integer> test4 = new BPlusTree<>(4, true);
+        for (int i = 0; i < 200; i += 2) {
+            test4.insert(i);
+        }
+        java.util.List<Integer> actual = new java.util.ArrayList<>();
+        test4.range(11, 31).forEach(actual::add);
+        assertEquals(java.util.List.of(12, 14, 16, 18, 20, 22, 24, 26, 28, 30), actual);
+        actual.clear();
+        test4.range(190, 1000).forEach(actual::add);
+        assertEquals(java.util.List.of(190, 192, 194, 196, 198), actual);
+        assertFalse(test4.range(50, 50).iterator().hasNext());
+        assertFalse(test4.range(199, 1000).iterator().hasNext());
+        assertThrows(IllegalArgumentException.class, () -> test4.range(5, 4));
+        Iterator<Integer> iterator = test4.iterator();
+        iterator.next();
+        test4.insert(1);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+        // a remove that shrinks the leaf a range scan is reading must not let it read past the
+        // values that are left
+        BPlusTree<Integer> test5 = new BPlusTree<>(4, false);
+        for (int i = 0; i < 20; i++) {
+            test5.insert(i);
+        }
+        Iterator<Integer> range = test5.range(0, 20).iterator();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, range.next());
+        }
+        test5.remove(2);
+        assertThrows(ConcurrentModificationException.class, range::next);
+    }
+}
@@ -18,6 +18,10 @@ public class BSTNode<T> {
     protected BSTNode<T> left = null;
     // reference to the node's right child
     protected BSTNode<T> right = null;
+    // number of copies of data this node stands for, only above 1 in a multiset tree
+    protected int count = 1;
+    // number of values in the subtree rooted at this node, including this node's copies
+    protected int subtreeSize = 1;
 
     /**
      * Constructor that creates a new node with the value data. Both parent
@@ -52,6 +56,20 @@ public class BSTNode<T> {
         return this.right;
     }
 
+    /**
+     * @return the number of copies of the value this node stores
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return the number of values in the subtree rooted at this node, counting every copy
+     */
+    public int getSubtreeSize() {
+        return this.subtreeSize;
+    }
+
     /**
      * @return the reference to the parent of this node,
      * or null if it has no parent
@@ -69,6 +87,18 @@ public class BSTNode<T> {
         this.data = newData;
     }
 
+    /**
+     * Replaces the value stored in this node, with its count, by the one stored in other. Removal
+     * uses this when this node takes over the value of its successor, so nodes that store more
+     * than the value override it to copy the rest along.
+     *
+     * @param other the node whose value this node takes over
+     */
+    protected void copyDataFrom(BSTNode<T> other) {
+        this.data = other.data;
+        this.count = other.count;
+    }
+
     /**
      * Gives this node a new parent and deletes the old parent.
      *
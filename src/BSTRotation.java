@@ -1,6 +1,80 @@
 
-public class BSTRotation<T> extends BinarySearchTree {
-    protected BSTNode root;
+public class BSTRotation<T extends Comparable<T>> extends BinarySearchTree<T> {
+
+    /**
+     * The balancing scheme of a tree built by create.
+     */
+    public enum Balancing {
+        // RedBlackTree, whose repair distinguishes the color and side of the new node's aunt
+        RED_BLACK,
+        // LeftLeaningRedBlackTree, whose red nodes are left children and whose repair has 3 steps
+        LEFT_LEANING,
+        // AATree, whose red nodes are right children and whose repair has two steps
+        AA
+    }
+
+    // receives rotations and whatever else subclasses report, or null when nobody observes the tree
+    protected TreeMetrics metrics;
+
+    /**
+     * Creates an empty balanced tree. All balancing schemes build the same RBTNode objects with
+     * the rotations of this class, and differ only in the repair after an insert and in the
+     * operations beyond BinarySearchTree they offer: only RedBlackTree can remove values.
+     *
+     * @param balancing the balancing scheme
+     * @param multiset  true to count equal values instead of storing them once
+     * @return a new empty tree
+     */
+    public static <T extends Comparable<T>> BSTRotation<T> create(Balancing balancing,
+                                                                  boolean multiset) {
+        switch (balancing) {
+            case LEFT_LEANING:
+                return new LeftLeaningRedBlackTree<>(multiset);
+            case AA:
+                return new AATree<>(multiset);
+            default:
+                return new RedBlackTree<>(multiset);
+        }
+    }
+
+    /**
+     * Constructor to create a new empty tree that stores every value once.
+     */
+    public BSTRotation() {
+        super();
+    }
+
+    /**
+     * Constructor to create a new empty tree.
+     *
+     * @param multiset true to count equal values instead of storing them once
+     */
+    public BSTRotation(boolean multiset) {
+        super(multiset);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values with comparator.
+     *
+     * @param multiset   true to count equal values instead of storing them once
+     * @param comparator the ordering of the values
+     * @throws NullPointerException if comparator is null
+     */
+    public BSTRotation(boolean multiset, java.util.Comparator<? super T> comparator) {
+        super(multiset, comparator);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values by the long key extracted
+     * from each of them.
+     *
+     * @param multiset true to count values with equal keys instead of storing one of them
+     * @param key      extracts the key of a value
+     * @throws NullPointerException if key is null
+     */
+    public BSTRotation(boolean multiset, java.util.function.ToLongFunction<? super T> key) {
+        super(multiset, key);
+    }
 
     /**
      * Performs the rotation operation on the provided nodes within this tree. When the provided child
@@ -29,13 +103,56 @@ public class BSTRotation<T> extends BinarySearchTree {
         // child is right child of parent so we rotate left
         if ( parent.getRight()!=null && parent.getRight().equals(child)) {
             rotateLeft(child, parent);
+            if (metrics != null) {
+                metrics.rotated(true);
+            }
         }
         // child is left child of parent so we rotate right
         if (parent.getLeft()!=null && parent.getLeft().equals(child)) {
             rotateRight(child, parent);
+            if (metrics != null) {
+                metrics.rotated(false);
+            }
         }
     }
 
+    /**
+     * Starts or stops reporting what this tree does to metrics. A tree without metrics checks
+     * for them at each reporting point and does nothing else, so leaving them off costs no
+     * measurable time.
+     *
+     * @param metrics the metrics to report to, or null to stop reporting
+     */
+    public void setMetrics(TreeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Finds how deep an insert of data went, for reporting it to metrics. The depth of a new node
+     * is found by following its parent links, so it has to be called before the tree is repaired.
+     * A value that was already stored is searched for again.
+     *
+     * @param data    the value that was inserted
+     * @param newNode the node insertHelper added for data, or null if it added none
+     * @return the depth of the node holding data, 0 for the root
+     */
+    protected final int insertDepth(T data, BSTNode<T> newNode) {
+        int depth = 0;
+        if (newNode != null) {
+            for (BSTNode<T> node = newNode.getUp(); node != null; node = node.getUp()) {
+                depth++;
+            }
+        } else {
+            BSTNode<T> node = root;
+            for (int comparison = compare(data, node.getData()); comparison != 0;
+                 comparison = compare(data, node.getData())) {
+                node = comparison < 0 ? node.getLeft() : node.getRight();
+                depth++;
+            }
+        }
+        return depth;
+    }
+
     /**
      * Private helper method that rotates our nodes to the left.
      *
@@ -47,7 +164,7 @@ public class BSTRotation<T> extends BinarySearchTree {
         BSTNode originalParent = parent;
         BSTNode originalChildLeft = child.getLeft();
         // sets the child to be in the position of the originalParent
-        child.setUp(originalChild);
+        child.setUp(originalParent.getUp());
         // if the original parent doesn't have a parent then the root is child
         if (originalParent.getUp() == null) {
             root = child;
@@ -73,6 +190,10 @@ public class BSTRotation<T> extends BinarySearchTree {
         }
         // set parent's parent to be the originalChild
         parent.setUp(originalChild);
+        // child now covers the subtree parent used to cover, and parent lost child's other side
+        child.subtreeSize = parent.subtreeSize;
+        parent.subtreeSize = parent.count + subtreeSize(parent.getLeft())
+                + subtreeSize(parent.getRight());
     }
 
     /**
@@ -112,6 +233,10 @@ public class BSTRotation<T> extends BinarySearchTree {
         }
         // set parent's parent to be the originalChild
         parent.setUp(originalChild);
+        // child now covers the subtree parent used to cover, and parent lost child's other side
+        child.subtreeSize = parent.subtreeSize;
+        parent.subtreeSize = parent.count + subtreeSize(parent.getLeft())
+                + subtreeSize(parent.getRight());
 
 
     }
@@ -199,9 +324,31 @@ public class BSTRotation<T> extends BinarySearchTree {
         return true;
     }
 
+    /**
+     * Tester method that checks that create builds a balanced tree of the requested scheme.
+     */
+    public static boolean test4() {
+        Class<?>[] expected = {RedBlackTree.class, LeftLeaningRedBlackTree.class, AATree.class};
+        for (Balancing balancing : Balancing.values()) {
+            BSTRotation<Integer> tree = BSTRotation.create(balancing, false);
+            if (tree.getClass() != expected[balancing.ordinal()]) {
+                return false;
+            }
+            // ascending inserts leave a chain of 127 nodes in a tree without balancing
+            for (int i = 1; i <= 127; i++) {
+                tree.insert(i);
+            }
+            if (tree.size() != 127 || tree.height() > 14 || tree.first() != 1 || tree.last() != 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static void main(String[] args) {
         System.out.println("Test 1: " + test1());
         System.out.println("Test 2: " + test2());
         System.out.println("Test 3: " + test3());
+        System.out.println("Test 4: " + test4());
     }
 }
@@ -1,18 +1,98 @@
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Class that builds a BinarySearchTree and implements the SortedCollection interface
  * */
-public class BinarySearchTree<T extends Comparable<T>> implements SortedCollection<T> {
+public class BinarySearchTree<T extends Comparable<T>> implements SortedCollection<T>, Iterable<T> {
     // root node of the tree
     protected BSTNode<T> root;
 
-    // size of the tree
-    private int size;
+    // number of values stored in the tree, kept up to date by every method that adds or removes
+    // nodes so that size() doesn't have to traverse the tree
+    protected int size;
+
+    // whether equal values are counted in their node (multiset mode) instead of being dropped
+    protected final boolean multiset;
+
+    // number of structural changes made to the tree, so iterators can detect concurrent changes
+    protected int modCount;
+
+    // orders the values, or null when they are kept in their natural ordering
+    protected final Comparator<? super T> comparator;
+    // extracts the long key that orders the values, or null unless the tree was created with one;
+    // the comparator then compares these keys
+    protected final ToLongFunction<? super T> key;
 
     /**
      * Constructor to create a new empty tree
      */
     public BinarySearchTree() {
+        this(false);
+    }
+
+    /**
+     * Constructor to create a new empty tree. In multiset mode, inserting a value that is already
+     * stored counts one more copy in the node that holds it, so duplicates take neither a new
+     * node nor any rebalancing; otherwise the value is dropped.
+     *
+     * @param multiset true to count equal values instead of storing them once
+     */
+    public BinarySearchTree(boolean multiset) {
+        this(multiset, null, null);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values with comparator instead of
+     * their natural ordering. Values the comparator finds equal are treated as duplicates.
+     *
+     * @param multiset   true to count equal values instead of storing them once
+     * @param comparator the ordering of the values
+     * @throws NullPointerException if comparator is null
+     */
+    public BinarySearchTree(boolean multiset, Comparator<? super T> comparator) {
+        this(multiset, java.util.Objects.requireNonNull(comparator), null);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values by the long key extracted
+     * from each of them. Searches extract the key of the value they look for once and then
+     * compare primitive keys on the way down, without any object standing in for the key.
+     *
+     * @param multiset true to count values with equal keys instead of storing one of them
+     * @param key      extracts the key of a value
+     * @throws NullPointerException if key is null
+     */
+    public BinarySearchTree(boolean multiset, ToLongFunction<? super T> key) {
+        this(multiset, Comparator.comparingLong(key), key);
+    }
+
+    /**
+     * Stores the settings of a new empty tree.
+     */
+    private BinarySearchTree(boolean multiset, Comparator<? super T> comparator,
+                             ToLongFunction<? super T> key) {
         this.root = null;
+        this.multiset = multiset;
+        this.comparator = comparator;
+        this.key = key;
+    }
+
+    /**
+     * Compares two values in the ordering of this tree.
+     *
+     * @return a negative number, zero or a positive number as a is less than, equal to or
+     * greater than b
+     */
+    protected final int compare(T a, T b) {
+        return comparator == null ? a.compareTo(b) : comparator.compare(a, b);
     }
 
     /**
@@ -27,50 +107,102 @@ public class BinarySearchTree<T extends Comparable<T>> implements SortedCollecti
         if (data == null) {
             throw new NullPointerException();
         }
-        // Creates new node with data given
-        BSTNode<T> newNode = new BSTNode<T>((T) data);
-        // if tree is empty then newNode becomes the root
+        // if tree is empty then a new node with data becomes the root
         if (root == null) {
-            root = newNode;
-        } // if tree isn't empty then we recursively search through the tree and insert node in correct
+            root = createNode((T) data);
+            size++;
+            modCount++;
+        } // if tree isn't empty then we search down through the tree and insert data in correct
         // spot
         else {
-            insertHelper(newNode, root);
+            insertHelper((T) data, root);
         }
     }
 
     /**
-     * Performs the naive binary search tree insert algorithm to recursively insert the provided
-     * newNode (which has already been initialized with a data value) into the provided tree/subtree.
+     * Creates a node holding data. Subclasses override this to store their own node type.
+     *
+     * @param data the value the new node stores
+     * @return a new unlinked node
+     */
+    protected BSTNode<T> createNode(T data) {
+        return new BSTNode<T>(data);
+    }
+
+    /**
+     * Performs the naive binary search tree insert algorithm to insert data into the provided
+     * tree/subtree. The search walks down the tree in a loop and compares once per level, and a
+     * node is only created once it reaches a free child position. When a node with equal data is
+     * found, a multiset tree counts one more copy in that node, while any other tree drops data.
+     * size, modCount and the subtree sizes of the ancestors are updated for whatever is stored.
      * When the provided subtree is null, this method does nothing.
+     *
+     * @return the newly linked node, or null if no node was added
      */
-    protected void insertHelper(BSTNode<T> newNode, BSTNode<T> subtree) {
-        // method does nothing if subtree is null
-        if (subtree == null) {
-            //System.out.println("Wrong");
-            return;
-        }
-        // compares newNode to the current nodes left child
-        if (newNode.getData().compareTo(subtree.getData()) < 0) {
-            // if there's space in left child then newNode is added there
-            if (subtree.getLeft() == null) {
-                subtree.setLeft(newNode);
-                newNode.setUp(subtree);
+    protected BSTNode<T> insertHelper(T data, BSTNode<T> subtree) {
+        // the ordering is fixed for the tree, so each comparison below takes the same branch on
+        // every level and the JIT can inline the one comparison this tree uses
+        long dataKey = key == null ? 0 : key.applyAsLong(data);
+        while (subtree != null) {
+            int comparison = key != null ? Long.compare(dataKey, key.applyAsLong(subtree.getData()))
+                    : comparator != null ? comparator.compare(data, subtree.getData())
+                    : data.compareTo(subtree.getData());
+            // equal data is already stored: count another copy or drop it
+            if (comparison == 0) {
+                if (multiset) {
+                    subtree.count++;
+                    subtree.subtreeSize++;
+                    growAncestors(subtree);
+                    size++;
+                    modCount++;
+                }
+                return null;
             }
-            // method is recursively called to go left again
-            insertHelper(newNode, subtree.getLeft());
-
-        } // compares newNode to the current nodes right child
-        else if (newNode.getData().compareTo(subtree.getData()) > 0) {
-            // if there's space in right child then newNode is added there
-            if (subtree.getRight() == null) {
-                subtree.setRight(newNode);
-                newNode.setUp(subtree);
+            // newNode belongs in the left subtree
+            if (comparison < 0) {
+                // if there's space in left child then newNode is added there
+                if (subtree.getLeft() == null) {
+                    return link(createNode(data), subtree, true);
+                }
+                subtree = subtree.getLeft();
+            } // newNode belongs in the right subtree
+            else {
+                // if there's space in right child then newNode is added there
+                if (subtree.getRight() == null) {
+                    return link(createNode(data), subtree, false);
+                }
+                subtree = subtree.getRight();
             }
-            // method is rec
-            insertHelper(newNode, subtree.getRight());
         }
+        return null;
+    }
+
+    /**
+     * Links newNode as the left or right child of parent and counts it in size and in the
+     * subtree sizes of its ancestors.
+     *
+     * @return newNode
+     */
+    protected BSTNode<T> link(BSTNode<T> newNode, BSTNode<T> parent, boolean left) {
+        if (left) {
+            parent.setLeft(newNode);
+        } else {
+            parent.setRight(newNode);
+        }
+        newNode.setUp(parent);
+        growAncestors(newNode);
+        size++;
+        modCount++;
+        return newNode;
+    }
 
+    /**
+     * Increments the subtree size of every ancestor of a newly linked node.
+     */
+    private static <T> void growAncestors(BSTNode<T> node) {
+        for (BSTNode<T> ancestor = node.getUp(); ancestor != null; ancestor = ancestor.getUp()) {
+            ancestor.subtreeSize++;
+        }
     }
 
     /**
@@ -85,54 +217,183 @@ public class BinarySearchTree<T extends Comparable<T>> implements SortedCollecti
         if (data == null) {
             return false;
         }
-        BSTNode<T> newNode = new BSTNode<T>((T) data);
-        return containsHelper(newNode, root);
+        T value = (T) data;
+        // walk down from the root comparing once per level, without allocating anything
+        long dataKey = key == null ? 0 : key.applyAsLong(value);
+        BSTNode<T> current = root;
+        while (current != null) {
+            int comparison = key != null ? Long.compare(dataKey, key.applyAsLong(current.getData()))
+                    : comparator != null ? comparator.compare(value, current.getData())
+                    : data.compareTo(current.getData());
+            // if datas match then data is stored in the tree
+            if (comparison == 0) {
+                return true;
+            }
+            // continue left if data is smaller, right if it is larger
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        return false;
     }
 
     /**
-     * Private helper method that check whether data is stored in the tree.
+     * Finds the lowest node on the path from finger up to the root whose subtree covers value,
+     * so that a search for value can start there instead of at the root. When value is larger
+     * than the value in finger, only the upper end of a subtree has to be checked. That end is
+     * the first ancestor reached through a left child, so right links are followed up without
+     * comparing, and every ancestor that ends the range is compared once; smaller values are
+     * handled the other way around. A value near the finger is therefore found after O(log d)
+     * comparisons, d being how many values lie in between.
      *
-     * @param newNode the node to be added to the collection
-     * @param subtree the subtree we're looking through
-     * @return true if the collection contains data one or more times, and false otherwise
+     * @param finger a node of this tree
+     * @param value  the value to search for
+     * @return the node to start the search for value from
      */
-    private boolean containsHelper(BSTNode<T> newNode, BSTNode<T> subtree) {
-        // if node is null then can't be contained
-        if (subtree == null) {
-            return false;
+    protected BSTNode<T> climb(BSTNode<T> finger, T value) {
+        int comparison = compare(value, finger.getData());
+        if (comparison == 0) {
+            return finger;
         }
-        // if datas match then data is stored in the tree
-        if (newNode.getData().compareTo(subtree.getData()) == 0) {
-            return true;
-        } // if data is smaller than subtree then continue going left
-        else if (newNode.getData().compareTo(subtree.getData()) < 0) {
-            return containsHelper(newNode, subtree.getLeft());
-        } // if data is larger than subtree then continue going right
-        else {
-            return containsHelper(newNode, subtree.getRight());
+        BSTNode<T> start = finger;
+        BSTNode<T> node = finger;
+        while (true) {
+            // going up on the side away from value doesn't change where the subtree ends
+            if (comparison > 0) {
+                while (node.getUp() != null && node.getUp().getRight() == node) {
+                    node = node.getUp();
+                }
+            } else {
+                while (node.getUp() != null && node.getUp().getLeft() == node) {
+                    node = node.getUp();
+                }
+            }
+            BSTNode<T> bound = node.getUp();
+            // the subtree of start ends before bound, so it covers value unless bound is passed
+            if (bound == null || Integer.signum(compare(bound.getData(), value))
+                    == Integer.signum(comparison)) {
+                return start;
+            }
+            start = bound;
+            node = bound;
         }
     }
 
+    /**
+     * Returns a cursor that searches the tree starting from the node its previous search ended
+     * at, which makes runs of lookups for nearby values cheaper than contains.
+     *
+     * @return a new cursor, positioned at the root
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Searches the tree from a finger: the node the previous search of this cursor ended at. A
+     * search climbs up the parent references only as far as needed to cover the new value and
+     * then walks down from there, so looking up a value d positions away from the previous one
+     * costs O(log d) instead of O(log n). Unrelated lookups pay for the climb on top of the
+     * descent, so they are better served by contains. A cursor is not an iterator and doesn't
+     * fail when the tree changes: its next search simply starts over from the root.
+     */
+    public class Cursor {
+        // node the last search ended at, or null before the first search
+        private BSTNode<T> finger;
+        // modCount of the tree when finger was set
+        private int expectedModCount;
+
+        /**
+         * Check whether data is stored in the tree, and move the cursor to where the search
+         * ended.
+         *
+         * @param data the value to check for
+         * @return true if the tree contains data, false otherwise
+         */
+        public boolean contains(T data) {
+            if (data == null) {
+                return false;
+            }
+            // a change may have unlinked the finger, so start over from the root
+            if (finger == null || modCount != expectedModCount) {
+                finger = root;
+                expectedModCount = modCount;
+                if (finger == null) {
+                    return false;
+                }
+            }
+            BSTNode<T> current = climb(finger, data);
+            while (true) {
+                int comparison = compare(data, current.getData());
+                if (comparison == 0) {
+                    finger = current;
+                    return true;
+                }
+                BSTNode<T> next = comparison < 0 ? current.getLeft() : current.getRight();
+                if (next == null) {
+                    finger = current;
+                    return false;
+                }
+                current = next;
+            }
+        }
+    }
+
+    /**
+     * Counts how many copies of data are stored. Only a multiset tree stores more than one.
+     *
+     * @param data the value to count
+     * @return the number of copies of data in the tree, or 0 if it is not stored
+     */
+    public int count(Comparable data) {
+        if (data == null) {
+            return 0;
+        }
+        BSTNode<T> current = root;
+        while (current != null) {
+            int comparison = compare((T) data, current.getData());
+            if (comparison == 0) {
+                return current.count;
+            }
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        return 0;
+    }
+
     /**
      * Counts the number of values in the collection, with each duplicate value being counted
-     * separately within the value returned.
+     * separately within the value returned. Runs in constant time as the count is maintained by
+     * insert and clear.
      *
      */
     public int size() {
-        return sizeHelper(root);
+        return size;
     }
 
     /**
-     * Helper method that counts the number of values in the collection, with each duplicate value
-     * being counted separately within the value returned.
+     * Computes the height of the tree by visiting every node one level at a time, so it takes
+     * O(n) time and no stack space however unbalanced the tree is.
+     *
+     * @return the number of nodes on the longest path from the root to a leaf, 0 for an empty tree
      */
-    private int sizeHelper(BSTNode<T> root) {
-        // root is null so tree is empty
-        if (root == null) {
-            return 0;
+    public int height() {
+        int height = 0;
+        java.util.ArrayDeque<BSTNode<T>> level = new java.util.ArrayDeque<>();
+        if (root != null) {
+            level.add(root);
         }
-        // recursively calls helper method to go through each node in the left and right subtrees
-        return 1 + sizeHelper(root.getLeft()) + sizeHelper(root.getRight());
+        while (!level.isEmpty()) {
+            height++;
+            // replace the nodes of this level with their children
+            for (int i = level.size(); i > 0; i--) {
+                BSTNode<T> node = level.poll();
+                if (node.getLeft() != null) {
+                    level.add(node.getLeft());
+                }
+                if (node.getRight() != null) {
+                    level.add(node.getRight());
+                }
+            }
+        }
+        return height;
     }
 
     /**
@@ -150,6 +411,460 @@ public class BinarySearchTree<T extends Comparable<T>> implements SortedCollecti
      */
     public void clear() {
         root = null;
+        size = 0;
+        modCount++;
+    }
+
+
+    /**
+     * Returns an iterator over the values in ascending order. The iterator moves from node to
+     * node through the parent references instead of keeping a stack, so it needs no memory
+     * besides itself. It fails with a ConcurrentModificationException when the tree is changed
+     * other than through the iterator while iterating.
+     *
+     * @return an iterator over the values of this tree
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new TreeIterator(leftMost(root), null);
+    }
+
+    /**
+     * Iterator over the values from the value in start up to, but excluding, end. Every copy of a
+     * value in a multiset tree is returned.
+     */
+    private class TreeIterator implements Iterator<T> {
+        // node holding the value next() returns, or null at the end
+        private BSTNode<T> next;
+        // copies of the value in next that have already been returned
+        private int returned;
+        // values from end on are not returned; null when the iterator runs to the largest value
+        private final T end;
+        // modCount the tree must still have for this iterator to be valid
+        private final int expectedModCount = modCount;
+
+        TreeIterator(BSTNode<T> start, T end) {
+            this.next = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null && (end == null || compare(next.getData(), end) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            T data = next.getData();
+            if (++returned == next.count) {
+                next = successor(next);
+                returned = 0;
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Returns a spliterator over the values in ascending order. Splitting hands off the left
+     * subtree of the node where the remaining range would be cut, so the halves of a split are
+     * whole subtrees and a parallel stream divides the tree evenly across threads.
+     *
+     * @return a SIZED, SORTED, ORDERED and NONNULL spliterator over this tree, which is also
+     * DISTINCT unless this is a multiset tree
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new TreeSpliterator(leftMost(root), 0, null, root, size, true, modCount);
+    }
+
+    /**
+     * @return a sequential stream over the values in ascending order
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @return a parallel stream over the values in ascending order
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * @return the smallest value in the tree
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public T first() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return leftMost(root).getData();
+    }
+
+    /**
+     * @return the largest value in the tree
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public T last() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        BSTNode<T> node = root;
+        while (node.getRight() != null) {
+            node = node.getRight();
+        }
+        return node.getData();
+    }
+
+    /**
+     * @param data the value to search for
+     * @return the largest value less than or equal to data, or null if there is none
+     * @throws NullPointerException if data is null
+     */
+    public T floor(T data) {
+        return dataOf(floorNode(data, true));
+    }
+
+    /**
+     * @param data the value to search for
+     * @return the largest value strictly less than data, or null if there is none
+     * @throws NullPointerException if data is null
+     */
+    public T lower(T data) {
+        return dataOf(floorNode(data, false));
+    }
+
+    /**
+     * @param data the value to search for
+     * @return the smallest value greater than or equal to data, or null if there is none
+     * @throws NullPointerException if data is null
+     */
+    public T ceiling(T data) {
+        return dataOf(ceilingNode(data, true));
+    }
+
+    /**
+     * @param data the value to search for
+     * @return the smallest value strictly greater than data, or null if there is none
+     * @throws NullPointerException if data is null
+     */
+    public T higher(T data) {
+        return dataOf(ceilingNode(data, false));
+    }
+
+    /**
+     * Returns a view of the values from low (inclusive) to high (exclusive). Nothing is copied:
+     * every iteration over the view finds the first value in O(log n) and then walks through
+     * the tree in order, so visiting k values costs O(log n + k). Like iterator(), iterators
+     * of the view fail when the tree is changed while iterating.
+     *
+     * @param low  the smallest value that can be included
+     * @param high the first value that is excluded
+     * @return an Iterable over the values in [low, high) in ascending order
+     * @throws NullPointerException     if low or high is null
+     * @throws IllegalArgumentException if low is greater than high
+     */
+    public Iterable<T> range(T low, T high) {
+        if (low == null || high == null) {
+            throw new NullPointerException();
+        }
+        if (compare(low, high) > 0) {
+            throw new IllegalArgumentException("low is greater than high");
+        }
+        return () -> new TreeIterator(ceilingNode(low, true), high);
+    }
+
+    /**
+     * Counts the values in the tree that are strictly less than data, using the subtree sizes
+     * instead of walking over those values. Runs in O(h), which is O(log n) for balanced trees.
+     *
+     * @param data the value to rank
+     * @return the number of values less than data, which is also the position data has or would
+     * have in ascending order
+     * @throws NullPointerException if data is null
+     */
+    public int rank(T data) {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        int rank = 0;
+        BSTNode<T> current = root;
+        while (current != null) {
+            int comparison = compare(data, current.getData());
+            if (comparison <= 0) {
+                // data is in the left subtree, or is current itself
+                if (comparison == 0) {
+                    return rank + subtreeSize(current.getLeft());
+                }
+                current = current.getLeft();
+            } else {
+                // current and its whole left subtree are smaller than data
+                rank += subtreeSize(current.getLeft()) + current.count;
+                current = current.getRight();
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the value at the given position in ascending order. Runs in O(h), which is
+     * O(log n) for balanced trees.
+     *
+     * @param index the position of the value, starting from 0 for the smallest value; every
+     *              copy of a value in a multiset tree has its own position
+     * @return the value at that position
+     * @throws IndexOutOfBoundsException if index is negative or not less than size()
+     */
+    public T select(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " for size " + size);
+        }
+        BSTNode<T> current = root;
+        while (true) {
+            int leftSize = subtreeSize(current.getLeft());
+            if (index < leftSize) {
+                current = current.getLeft();
+            } else if (index < leftSize + current.count) {
+                return current.getData();
+            } else {
+                // skip the left subtree and current when the position lies right of them
+                index -= leftSize + current.count;
+                current = current.getRight();
+            }
+        }
+    }
+
+    /**
+     * Counts the values from low (inclusive) to high (exclusive), the same values that
+     * range(low, high) visits, in O(h) without visiting them.
+     *
+     * @param low  the smallest value that can be counted
+     * @param high the first value that is not counted
+     * @return the number of values in [low, high)
+     * @throws NullPointerException     if low or high is null
+     * @throws IllegalArgumentException if low is greater than high
+     */
+    public int countInRange(T low, T high) {
+        if (low == null || high == null) {
+            throw new NullPointerException();
+        }
+        if (compare(low, high) > 0) {
+            throw new IllegalArgumentException("low is greater than high");
+        }
+        return rank(high) - rank(low);
+    }
+
+    /**
+     * @return the number of values in the subtree rooted at node, or 0 if node is null
+     */
+    protected static int subtreeSize(BSTNode<?> node) {
+        return node == null ? 0 : node.subtreeSize;
+    }
+
+    /**
+     * Finds the node with the smallest value greater than data, or equal to data when inclusive.
+     *
+     * @return the node, or null if there is none
+     */
+    protected BSTNode<T> ceilingNode(T data, boolean inclusive) {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        BSTNode<T> current = root;
+        BSTNode<T> best = null;
+        while (current != null) {
+            int comparison = compare(data, current.getData());
+            if (comparison == 0 && inclusive) {
+                return current;
+            }
+            // current is a candidate when it is larger than data; look for a smaller one left
+            if (comparison < 0) {
+                best = current;
+                current = current.getLeft();
+            } else {
+                current = current.getRight();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the node with the largest value less than data, or equal to data when inclusive.
+     *
+     * @return the node, or null if there is none
+     */
+    protected BSTNode<T> floorNode(T data, boolean inclusive) {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        BSTNode<T> current = root;
+        BSTNode<T> best = null;
+        while (current != null) {
+            int comparison = compare(data, current.getData());
+            if (comparison == 0 && inclusive) {
+                return current;
+            }
+            // current is a candidate when it is smaller than data; look for a larger one right
+            if (comparison > 0) {
+                best = current;
+                current = current.getRight();
+            } else {
+                current = current.getLeft();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the value stored in node, or null if node is null
+     */
+    private static <T> T dataOf(BSTNode<T> node) {
+        return node == null ? null : node.getData();
+    }
+
+    /**
+     * @return the left-most node of the subtree rooted at node, or null if node is null
+     */
+    protected static <T> BSTNode<T> leftMost(BSTNode<T> node) {
+        if (node == null) {
+            return null;
+        }
+        while (node.getLeft() != null) {
+            node = node.getLeft();
+        }
+        return node;
+    }
+
+    /**
+     * Finds the node that follows node in ascending order, using the parent references.
+     *
+     * @return the in-order successor of node, or null if node holds the largest value
+     */
+    protected static <T> BSTNode<T> successor(BSTNode<T> node) {
+        // the successor is the left-most node of the right subtree, if there is one
+        if (node.getRight() != null) {
+            return leftMost(node.getRight());
+        }
+        // otherwise it is the first ancestor that node is in the left subtree of
+        BSTNode<T> parent = node.getUp();
+        while (parent != null && node == parent.getRight()) {
+            node = parent;
+            parent = parent.getUp();
+        }
+        return parent;
+    }
+
+    /**
+     * Spliterator over the nodes from current (inclusive) to fence (exclusive, null for the end
+     * of the tree). splitNode is the root of the subtree in the middle of that range, where the
+     * next split cuts it, or null when the range can't be split any further.
+     */
+    private class TreeSpliterator implements Spliterator<T> {
+        private BSTNode<T> current;
+        // copies of the value in current that have already been returned
+        private int returned;
+        private final BSTNode<T> fence;
+        private BSTNode<T> splitNode;
+        // number of values in the range, exact until the first split
+        private long estimate;
+        private boolean exact;
+        private final int expectedModCount;
+
+        TreeSpliterator(BSTNode<T> current, int returned, BSTNode<T> fence, BSTNode<T> splitNode,
+                        long estimate, boolean exact, int expectedModCount) {
+            this.current = current;
+            this.returned = returned;
+            this.fence = fence;
+            this.splitNode = splitNode;
+            this.estimate = estimate;
+            this.exact = exact;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            BSTNode<T> middle = splitNode;
+            // only split at a node that lies strictly inside the remaining range
+            if (current == null || current == fence || middle == null || middle == current
+                    || middle == fence || compare(current.getData(), middle.getData()) > 0) {
+                return null;
+            }
+            // the prefix [current, middle) is the subtree left of middle, plus what this range
+            // has already reached past it; the rest continues at middle, splitting at its right
+            // subtree next
+            TreeSpliterator prefix = new TreeSpliterator(current, returned, middle,
+                    middle.getLeft(), estimate >>>= 1, false, expectedModCount);
+            exact = false;
+            current = middle;
+            returned = 0;
+            splitNode = middle.getRight();
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (current == null || current == fence) {
+                return false;
+            }
+            T data = current.getData();
+            if (++returned == current.count) {
+                current = successor(current);
+                returned = 0;
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            action.accept(data);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            BSTNode<T> node = current;
+            int skip = returned;
+            current = fence;
+            returned = 0;
+            while (node != null && node != fence) {
+                for (int copy = skip; copy < node.count; copy++) {
+                    action.accept(node.getData());
+                }
+                skip = 0;
+                node = successor(node);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (exact ? Spliterator.SIZED : 0) | (multiset ? 0 : Spliterator.DISTINCT)
+                    | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+
+        @Override
+        public java.util.Comparator<? super T> getComparator() {
+            // null means the values are sorted in their natural ordering
+            return comparator;
+        }
     }
 
 
@@ -246,13 +961,179 @@ public class BinarySearchTree<T extends Comparable<T>> implements SortedCollecti
         return true;
     }
 
+    /**
+     * Test method that checks that size is kept up to date when a value that is already stored is
+     * inserted again and when the tree is cleared and reused.
+     */
+    public boolean test4(BinarySearchTree<Integer> newTree) {
+        newTree.insert(40);
+        newTree.insert(10);
+        newTree.insert(60);
+        // inserting stored values again doesn't add nodes, so the size must not change
+        newTree.insert(10);
+        newTree.insert(40);
+        if (newTree.size() != 3) {
+            return false;
+        }
+        // size restarts from 0 after clear
+        newTree.clear();
+        newTree.insert(5);
+        if (newTree.size() != 1 || newTree.isEmpty()) {
+            return false;
+        }
+        return true;
+    }
+    /**
+     * Test method that iterates over a tree in ascending order, and checks that changing the tree
+     * while iterating makes the iterator fail.
+     */
+    public boolean test5(BinarySearchTree<Integer> newTree) {
+        int[] values = {50, 20, 70, 10, 30, 60, 80, 25};
+        for (int value : values) {
+            newTree.insert(value);
+        }
+        // the values must come out sorted
+        StringBuilder order = new StringBuilder();
+        for (int value : newTree) {
+            order.append(value).append(' ');
+        }
+        if (!order.toString().equals("10 20 25 30 50 60 70 80 ")) {
+            return false;
+        }
+        // streams see the same values
+        if (newTree.stream().mapToInt(Integer::intValue).sum() != 345) {
+            return false;
+        }
+        // inserting during iteration must be detected
+        Iterator<Integer> iterator = newTree.iterator();
+        iterator.next();
+        newTree.insert(99);
+        try {
+            iterator.next();
+            return false;
+        } catch (ConcurrentModificationException e) {
+        }
+        return true;
+    }
+
+    /**
+     * Test method that checks rank, select and countInRange on an unbalanced tree.
+     */
+    public boolean test6(BinarySearchTree<Integer> newTree) {
+        int[] values = {50, 20, 70, 10, 30, 60, 80, 25, 20};
+        for (int value : values) {
+            newTree.insert(value);
+        }
+        // in ascending order the tree holds 10 20 25 30 50 60 70 80
+        if (newTree.rank(10) != 0 || newTree.rank(26) != 3 || newTree.rank(99) != 8) {
+            return false;
+        }
+        if (newTree.select(0) != 10 || newTree.select(3) != 30 || newTree.select(7) != 80) {
+            return false;
+        }
+        if (newTree.countInRange(20, 60) != 4 || newTree.countInRange(61, 61) != 0) {
+            return false;
+        }
+        try {
+            newTree.select(8);
+            return false;
+        } catch (IndexOutOfBoundsException e) {
+        }
+        return true;
+    }
+
+    /**
+     * Test method that checks that a multiset tree counts duplicates instead of dropping them.
+     */
+    public boolean test7(BinarySearchTree<Integer> newTree) {
+        int[] values = {50, 20, 70, 20, 20, 70};
+        for (int value : values) {
+            newTree.insert(value);
+        }
+        // duplicates are counted in the existing nodes, no new nodes are linked
+        if (newTree.size() != 6 || newTree.count(20) != 3 || newTree.count(30) != 0
+                || newTree.root.getLeft().getLeft() != null) {
+            return false;
+        }
+        StringBuilder order = new StringBuilder();
+        for (int value : newTree) {
+            order.append(value).append(' ');
+        }
+        if (!order.toString().equals("20 20 20 50 70 70 ")) {
+            return false;
+        }
+        return newTree.rank(50) == 3 && newTree.select(2) == 20 && newTree.select(5) == 70;
+    }
+
+    /**
+     * Test method that checks that a cursor finds the same values as contains, whatever order
+     * they are looked up in, and keeps working after the tree changes.
+     */
+    public boolean test8(BinarySearchTree<Integer> newTree) {
+        int[] values = {50, 20, 70, 10, 30, 60, 80, 25, 35, 65};
+        for (int value : values) {
+            newTree.insert(value);
+        }
+        BinarySearchTree<Integer>.Cursor cursor = newTree.cursor();
+        int[] lookups = {10, 11, 25, 35, 36, 30, 20, 80, 65, 5, 50, 64, 90, 60};
+        for (int lookup : lookups) {
+            if (cursor.contains(lookup) != newTree.contains(lookup)) {
+                return false;
+            }
+        }
+        newTree.insert(66);
+        return cursor.contains(66) && cursor.contains(65) && !cursor.contains(67);
+    }
+
+    /**
+     * Test method that inserts sorted values, which turns the tree into a single chain of right
+     * children, on a thread with a 64 KB stack. Insert, contains, height and iteration all walk
+     * the chain in loops, so none of them overflows the stack.
+     */
+    public boolean test9(BinarySearchTree<Integer> newTree) {
+        int n = 20000;
+        boolean[] passed = new boolean[1];
+        Thread thread = new Thread(null, () -> {
+            for (int i = 0; i < n; i++) {
+                newTree.insert(i);
+            }
+            int next = 0;
+            for (int value : newTree) {
+                if (value != next++) {
+                    return;
+                }
+            }
+            passed[0] = next == n && newTree.size() == n && newTree.height() == n
+                    && newTree.contains(n - 1) && !newTree.contains(n)
+                    && newTree.select(n - 1) == n - 1;
+        }, "small-stack", 64 * 1024);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            return false;
+        }
+        return passed[0];
+    }
 
     public static void main(String args[]) {
         BinarySearchTree<Integer> tree1 = new BinarySearchTree<Integer>();
         BinarySearchTree<String> tree2 = new BinarySearchTree<String>();
         BinarySearchTree<Integer> tree3 = new BinarySearchTree<Integer>();
+        BinarySearchTree<Integer> tree4 = new BinarySearchTree<Integer>();
         System.out.println("Test 1: " + tree1.test1(tree1));
         System.out.println("Test 2: " + tree2.test2(tree2));
         System.out.println("Test 3: " + tree3.test3(tree3));
+        System.out.println("Test 4: " + tree4.test4(tree4));
+        BinarySearchTree<Integer> tree5 = new BinarySearchTree<Integer>();
+        System.out.println("Test 5: " + tree5.test5(tree5));
+        BinarySearchTree<Integer> tree6 = new BinarySearchTree<Integer>();
+        System.out.println("Test 6: " + tree6.test6(tree6));
+        BinarySearchTree<Integer> tree7 = new BinarySearchTree<Integer>(true);
+        System.out.println("Test 7: " + tree7.test7(tree7));
+        BinarySearchTree<Integer> tree8 = new BinarySearchTree<Integer>();
+        System.out.println("Test 8: " + tree8.test8(tree8));
+        BinarySearchTree<Integer> tree9 = new BinarySearchTree<Integer>();
+        System.out.println("Test 9: " + tree9.test9(tree9));
     }
 }
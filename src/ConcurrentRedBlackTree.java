@@ -0,0 +1,239 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collection;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe sorted collection backed by a RedBlackTree and a StampedLock. Writers insert and
+ * rebalance under the write lock. Readers don't take a lock: they descend through the tree in
+ * optimistic read mode and then validate that no writer ran in the meantime, retrying when one
+ * did. Only a reader that keeps losing against writers falls back to the read lock.
+ * */
+public class ConcurrentRedBlackTree<T extends Comparable<T>> implements SortedCollection<T> {
+
+    // optimistic attempts a reader makes before it waits for the read lock
+    private static final int OPTIMISTIC_ATTEMPTS = 8;
+    // a descent longer than this can only happen when a concurrent rotation moved the nodes
+    // under a reader; red black trees of up to 2^31 values are less than 64 levels high
+    private static final int MAX_DESCENT = 64;
+
+    // the tree holding the values, only changed under the write lock
+    private final RedBlackTree<T> tree = new RedBlackTree<>();
+    // guards tree
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Inserts a new data value under the write lock.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        long stamp = lock.writeLock();
+        try {
+            tree.insert(data);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes data under the write lock.
+     *
+     * @param data the value to remove
+     * @return true if data was stored and has been removed, false otherwise
+     */
+    public boolean remove(Comparable<T> data) {
+        if (data == null) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            return tree.remove(data);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Check whether data is stored in the tree, without blocking unless writers keep changing the
+     * tree during several attempts in a row.
+     *
+     * @param data the value to check for
+     * @return true if the collection contains data, and false otherwise
+     */
+    @Override
+    public boolean contains(Comparable<T> data) {
+        if (data == null) {
+            return false;
+        }
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            // a stamp of 0 means a writer holds the lock right now
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int found;
+            try {
+                found = search(data);
+            } catch (RuntimeException e) {
+                // a half-written node can make compareTo or the walk fail, which only counts as
+                // the caller's exception if no writer ran in the meantime
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp) && found >= 0) {
+                return found == 1;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return tree.contains(data);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Searches for data without any lock. Nodes may be relinked by a writer while this runs, so
+     * the result, and any exception thrown, is only meaningful when the caller's stamp validates
+     * afterwards.
+     *
+     * @return 1 if data was found, 0 if it was not, or -1 if the descent was cut short because it
+     * got longer than any valid tree allows
+     */
+    private int search(Comparable<T> data) {
+        BSTNode<T> current = tree.root;
+        for (int depth = 0; current != null; depth++) {
+            if (depth > MAX_DESCENT) {
+                return -1;
+            }
+            int comparison = data.compareTo(current.data);
+            if (comparison == 0) {
+                return 1;
+            }
+            current = comparison < 0 ? current.left : current.right;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of values in the collection
+     */
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int size = tree.size();
+        if (stamp != 0 && lock.validate(stamp)) {
+            return size;
+        }
+        stamp = lock.readLock();
+        try {
+            return tree.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return true if the collection contains no values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all values under the write lock.
+     */
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            tree.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds the values in ascending order to target under the read lock, so target receives a
+     * consistent snapshot of the tree even while writers are waiting.
+     *
+     * @param target the collection receiving the values
+     */
+    void addAllTo(Collection<? super T> target) {
+        long stamp = lock.readLock();
+        try {
+            tree.forEach(target::add);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Tester that runs writers and optimistic readers at the same time. Values below 1000 are
+     * inserted before the threads start and never removed, so readers must always find them
+     * */
+    @Test
+    public void testConcurrentReadersAndWriters() throws InterruptedException {
+        ConcurrentRedBlackTree<Integer> test1 = new ConcurrentRedBlackTree<>();
+        for (int i = 0; i < 1000; i++) {
+            test1.insert(i);
+        }
+        java.util.concurrent.atomic.AtomicBoolean failed = new java.util.concurrent.atomic.AtomicBoolean();
+        Thread[] threads = new Thread[6];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                java.util.Random random = new java.util.Random(id);
+                for (int i = 0; i < 50000; i++) {
+                    if (id < 2) {
+                        // writers churn values above 1000, causing rotations near the stable ones
+                        int value = 1000 + random.nextInt(5000);
+                        if (random.nextBoolean()) {
+                            test1.insert(value);
+                        } else {
+                            test1.remove(value);
+                        }
+                    } else if (!test1.contains(random.nextInt(1000))) {
+                        failed.set(true);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed.get());
+        test1.tree.checkInvariants();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(test1.contains(i));
+        }
+    }
+
+    /**
+     * Tester for exceptions thrown by compareTo while no writer is running, which belong to the
+     * caller and must not be swallowed as a failed optimistic attempt
+     * */
+    @Test
+    public void testCompareToFails() {
+        ConcurrentRedBlackTree<Integer> test2 = new ConcurrentRedBlackTree<>();
+        Comparable<Integer> failing = other -> {
+            throw new IllegalStateException("not comparable");
+        };
+        assertFalse(test2.contains(failing));
+        test2.insert(1);
+        assertThrows(IllegalStateException.class, () -> test2.contains(failing));
+        assertTrue(test2.contains(1));
+    }
+}
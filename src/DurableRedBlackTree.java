@@ -0,0 +1,469 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Red black tree that keeps its values across restarts. It lives in a directory holding two
+ * files: a snapshot of the whole tree written by RedBlackTree.writeTo, and a write-ahead log that
+ * receives every insert, remove and clear made since that snapshot. Opening the directory reads
+ * the snapshot and replays the log onto it; checkpoint() writes a new snapshot and empties the
+ * log. Each log record is
+ *
+ * [ operation (byte) | value (codec width) | CRC32 of the operation and value (int) ]
+ *
+ * so a record that was only partly written when the machine stopped is recognized and dropped,
+ * together with everything after it. Replaying a record twice changes nothing, which makes a
+ * crash between writing the snapshot and emptying the log harmless.
+ *
+ * How much of the log survives a crash depends on the Durability the tree was opened with.
+ * */
+public class DurableRedBlackTree<T extends Comparable<T>> implements SortedCollection<T>, Closeable {
+
+    /**
+     * How far a change has to travel before insert, remove or clear return.
+     */
+    public enum Durability {
+        // changes are not logged and only survive through checkpoint()
+        NONE,
+        // changes are written to the log through the page cache, so they survive the process
+        // ending but not the machine crashing
+        ASYNC,
+        // changes are written to the log, and a background thread forces the log to the device
+        // once per group commit interval, so a crash loses at most one interval of changes
+        GROUP_COMMIT,
+        // every change is forced to the device before the call returns
+        SYNC
+    }
+
+    // names of the files in the tree's directory
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String LOG_FILE = "wal.log";
+    private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+    // identifies log files written by this class ("RBW1")
+    private static final int LOG_MAGIC = 0x52425731;
+    private static final int LOG_VERSION = 1;
+    // magic, version and codec width
+    static final int LOG_HEADER_BYTES = 12;
+    // operations stored in log records
+    private static final byte INSERT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+    // interval between forced writes of the log unless another one is requested
+    private static final long DEFAULT_GROUP_COMMIT_MILLIS = 10;
+
+    // the tree holding the values
+    private final RedBlackTree<T> tree;
+    // converts values to and from their stored bytes
+    private final FixedWidthCodec<T> codec;
+    private final Path directory;
+    private final Durability durability;
+    // the open log, positioned after its last valid record
+    private final FileChannel log;
+    // holds one log record while it is written
+    private final ByteBuffer record;
+    // computes the checksum of each record
+    private final CRC32 checksum = new CRC32();
+    // forces the log once per interval in GROUP_COMMIT mode, null otherwise
+    private final ScheduledExecutorService committer;
+    // true while the log holds records that have not been forced to the device
+    private volatile boolean dirty = false;
+    // the first failure to force the log since the last checkpoint, or null. A failed force may
+    // have dropped records from the page cache, and a retry can succeed without writing them, so
+    // it is reported by every later change, sync() and close() instead of being retried
+    private volatile IOException forceFailure;
+
+    /**
+     * Opens the tree stored in directory, or creates an empty tree there, forcing the log every
+     * 10 milliseconds in GROUP_COMMIT mode.
+     *
+     * @param directory  the directory holding the snapshot and the log, created if missing
+     * @param codec      converts values to and from their stored bytes
+     * @param durability how far changes travel before they return
+     * @return the opened tree
+     * @throws IOException              if the files can't be read or created
+     * @throws IllegalArgumentException if the files were not written by this class, or with a
+     *                                  codec of a different width
+     */
+    public static <T extends Comparable<T>> DurableRedBlackTree<T> open(Path directory,
+                                                                         FixedWidthCodec<T> codec,
+                                                                         Durability durability)
+            throws IOException {
+        return open(directory, codec, durability, DEFAULT_GROUP_COMMIT_MILLIS);
+    }
+
+    /**
+     * Opens the tree stored in directory, or creates an empty tree there. The snapshot is read and
+     * every complete record of the log replayed onto it; a torn or corrupt record at the end of
+     * the log is cut off together with anything following it.
+     *
+     * @param directory         the directory holding the snapshot and the log, created if missing
+     * @param codec             converts values to and from their stored bytes
+     * @param durability        how far changes travel before they return
+     * @param groupCommitMillis milliseconds between forced writes of the log in GROUP_COMMIT mode
+     * @return the opened tree
+     * @throws IOException              if the files can't be read or created
+     * @throws IllegalArgumentException if the files were not written by this class, or with a
+     *                                  codec of a different width, or the interval is not positive
+     */
+    public static <T extends Comparable<T>> DurableRedBlackTree<T> open(Path directory,
+                                                                         FixedWidthCodec<T> codec,
+                                                                         Durability durability,
+                                                                         long groupCommitMillis)
+            throws IOException {
+        if (groupCommitMillis <= 0) {
+            throw new IllegalArgumentException("group commit interval must be positive");
+        }
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        RedBlackTree<T> tree = Files.exists(snapshot)
+                ? RedBlackTree.readFrom(snapshot, codec) : new RedBlackTree<>();
+        FileChannel log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new DurableRedBlackTree<>(tree, codec, directory, durability, log,
+                    groupCommitMillis);
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replays log onto tree and starts the group committer when durability asks for one.
+     */
+    private DurableRedBlackTree(RedBlackTree<T> tree, FixedWidthCodec<T> codec, Path directory,
+                                Durability durability, FileChannel log, long groupCommitMillis)
+            throws IOException {
+        this.tree = tree;
+        this.codec = codec;
+        this.directory = directory;
+        this.durability = durability;
+        this.log = log;
+        this.record = ByteBuffer.allocateDirect(1 + codec.width() + Integer.BYTES);
+        replay();
+        if (durability == Durability.GROUP_COMMIT) {
+            committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-group-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            committer.scheduleWithFixedDelay(this::commit, groupCommitMillis, groupCommitMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            committer = null;
+        }
+    }
+
+    /**
+     * Applies every valid record of the log to the tree and leaves the log positioned after the
+     * last of them, cutting off whatever follows. An empty or torn header is rewritten.
+     */
+    private void replay() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+        while (header.hasRemaining() && log.read(header, header.position()) > 0) {
+            // keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.remaining() < LOG_HEADER_BYTES) {
+            // the log is new, or the crash happened while its header was written
+            resetLog();
+            return;
+        }
+        if (header.getInt() != LOG_MAGIC || header.getInt() != LOG_VERSION) {
+            throw new IllegalArgumentException("not a log of version " + LOG_VERSION);
+        }
+        if (header.getInt() != codec.width()) {
+            throw new IllegalArgumentException("log was written with a codec of another width");
+        }
+        long position = LOG_HEADER_BYTES;
+        while (true) {
+            record.clear();
+            while (record.hasRemaining() && log.read(record, position + record.position()) > 0) {
+                // keep reading until the record is complete or the file ends
+            }
+            if (record.hasRemaining() || !checksumMatches()) {
+                break;
+            }
+            byte operation = record.get(0);
+            if (operation == INSERT) {
+                tree.insert(codec.decode(record, 1));
+            } else if (operation == REMOVE) {
+                tree.remove(codec.decode(record, 1));
+            } else if (operation == CLEAR) {
+                tree.clear();
+            } else {
+                break;
+            }
+            position += record.capacity();
+        }
+        // drop the torn tail so that new records follow the last valid one
+        log.truncate(position);
+        log.position(position);
+    }
+
+    /**
+     * @return true if the checksum stored at the end of the record in the buffer matches its
+     * operation and value
+     */
+    private boolean checksumMatches() {
+        int end = record.capacity() - Integer.BYTES;
+        checksum.reset();
+        checksum.update(record.duplicate().position(0).limit(end));
+        return (int) checksum.getValue() == record.getInt(end);
+    }
+
+    /**
+     * Empties the log, leaving only its header, and forces it to the device.
+     */
+    private void resetLog() throws IOException {
+        log.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+        header.putInt(LOG_MAGIC).putInt(LOG_VERSION).putInt(codec.width()).flip();
+        while (header.hasRemaining()) {
+            log.write(header, header.position());
+        }
+        log.position(LOG_HEADER_BYTES);
+        log.force(false);
+        dirty = false;
+    }
+
+    /**
+     * Appends one record to the log unless durability is NONE, and forces it to the device when
+     * durability is SYNC. A record that can't be written completely is cut off again, so that the
+     * records appended after it are not lost on replay.
+     *
+     * @throws UncheckedIOException if the log can't be written, or an earlier force of it failed
+     */
+    private void append(byte operation, T value) {
+        if (durability == Durability.NONE) {
+            return;
+        }
+        IOException failure = forceFailure;
+        if (failure != null) {
+            throw new UncheckedIOException("an earlier force of the log failed", failure);
+        }
+        record.clear();
+        record.put(0, operation);
+        if (value != null) {
+            codec.encode(value, record, 1);
+        } else {
+            for (int i = 1; i <= codec.width(); i++) {
+                record.put(i, (byte) 0);
+            }
+        }
+        int end = record.capacity() - Integer.BYTES;
+        checksum.reset();
+        checksum.update(record.duplicate().position(0).limit(end));
+        record.putInt(end, (int) checksum.getValue());
+        long start;
+        try {
+            start = log.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            while (record.hasRemaining()) {
+                log.write(record);
+            }
+        } catch (IOException e) {
+            try {
+                log.truncate(start);
+                log.position(start);
+            } catch (IOException truncateFailure) {
+                // a torn record stays in the log, so nothing may be appended after it
+                e.addSuppressed(truncateFailure);
+                forceFailure = e;
+            }
+            throw new UncheckedIOException(e);
+        }
+        if (durability == Durability.SYNC) {
+            try {
+                log.force(false);
+            } catch (IOException e) {
+                forceFailure = e;
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Forces the log to the device if it changed since the last time, called by the group
+     * committer.
+     */
+    private void commit() {
+        if (dirty && forceFailure == null) {
+            dirty = false;
+            try {
+                log.force(false);
+            } catch (IOException e) {
+                // the next change, sync() or close() reports the problem to a caller
+                forceFailure = e;
+            }
+        }
+    }
+
+    /**
+     * Inserts a new data value into the tree and logs the insert. Values that are already stored
+     * are not inserted or logged again.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     * @throws UncheckedIOException if the log can't be written, or an earlier force of it failed
+     */
+    @Override
+    public void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        if (!tree.contains(data)) {
+            append(INSERT, data);
+            tree.insert(data);
+        }
+    }
+
+    /**
+     * Removes data from the tree and logs the removal if it was stored.
+     *
+     * @param data the value to remove
+     * @return true if data was stored and has been removed, false otherwise
+     * @throws UncheckedIOException if the log can't be written, or an earlier force of it failed
+     */
+    public boolean remove(T data) {
+        if (data == null || !tree.contains(data)) {
+            return false;
+        }
+        append(REMOVE, data);
+        return tree.remove(data);
+    }
+
+    /**
+     * Check whether data is stored in the tree.
+     *
+     * @param data the value to check for
+     * @return true if the tree contains data, and false otherwise
+     */
+    @Override
+    public boolean contains(Comparable<T> data) {
+        return tree.contains(data);
+    }
+
+    /**
+     * @return the number of values in the tree
+     */
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * @return true if the tree contains no values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /**
+     * Removes all values from the tree and logs that it did.
+     *
+     * @throws UncheckedIOException if the log can't be written, or an earlier force of it failed
+     */
+    @Override
+    public void clear() {
+        append(CLEAR, null);
+        tree.clear();
+    }
+
+    /**
+     * Forces every change logged so far to the storage device, whatever the durability.
+     *
+     * @throws IOException if the log can't be forced, or an earlier force failed
+     */
+    public void sync() throws IOException {
+        IOException failure = forceFailure;
+        if (failure != null) {
+            throw new IOException("an earlier force of the log failed", failure);
+        }
+        dirty = false;
+        try {
+            log.force(false);
+        } catch (IOException e) {
+            forceFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the whole tree and empties the log. The snapshot is written to a
+     * temporary file and forced, renamed over the previous one, and the directory is forced so
+     * that the rename is on the device before the log is emptied. A crash at any point therefore
+     * leaves either the old snapshot with the log that belongs to it or the new snapshot. This is
+     * the only way changes survive in NONE mode, and since the snapshot holds every value in
+     * memory, it also clears an earlier failure to force the log.
+     *
+     * @throws IOException if the snapshot can't be written or the log can't be emptied
+     */
+    public void checkpoint() throws IOException {
+        Path temp = directory.resolve(SNAPSHOT_TEMP_FILE);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            tree.writeTo(channel, codec);
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        // the rename is a change of the directory, which is only durable once the directory is
+        // forced; emptying the log before that could leave the old snapshot with no log
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        resetLog();
+        forceFailure = null;
+    }
+
+    /**
+     * Stops the group committer, forces the log to the device and closes it. The tree must not be
+     * used afterwards. Closing does not write a snapshot, so the next open replays the log.
+     *
+     * @throws IOException if the log can't be forced or closed, or an earlier force failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (committer != null) {
+            // shutdown lets a running commit finish instead of interrupting it, which would close
+            // the channel under it
+            committer.shutdown();
+            try {
+                committer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            sync();
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * Checks the red black tree invariants of the values in memory.
+     *
+     * @throws IllegalStateException if one of the invariants does not hold
+     */
+    public void checkInvariants() {
+        tree.checkInvariants();
+    }
+}
@@ -0,0 +1,190 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeSet;
+
+/**
+ * Tests for DurableRedBlackTree.
+ * */
+public class DurableRedBlackTreeTest {
+
+    // bytes per log record of a tree of Long values: operation, value and checksum
+    private static final int RECORD_BYTES = 1 + Long.BYTES + Integer.BYTES;
+
+    /**
+     * Tester that reopens a tree after inserts, removes and a clear, once without and once with a
+     * checkpoint in between, and checks that it holds the same values
+     * */
+    @Test
+    public void testReplay() throws IOException {
+        Path directory = Files.createTempDirectory("rbt");
+        try {
+            java.util.Random random = new java.util.Random(19);
+            TreeSet<Long> expected = new TreeSet<>();
+            try (DurableRedBlackTree<Long> test1 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.GROUP_COMMIT, 1)) {
+                for (int i = 0; i < 5000; i++) {
+                    long value = random.nextInt(2000);
+                    if (i == 2500) {
+                        test1.clear();
+                        expected.clear();
+                    } else if (i % 3 == 0) {
+                        assertEquals(expected.remove(value), test1.remove(value));
+                    } else {
+                        test1.insert(value);
+                        expected.add(value);
+                    }
+                }
+            }
+            try (DurableRedBlackTree<Long> test2 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.SYNC)) {
+                assertContainsExactly(expected, test2);
+                test2.checkpoint();
+                assertEquals(DurableRedBlackTree.LOG_HEADER_BYTES,
+                        Files.size(directory.resolve(DurableRedBlackTree.LOG_FILE)));
+                test2.insert(-1L);
+                expected.add(-1L);
+            }
+            // the snapshot and the one record written after it add up to the same values
+            try (DurableRedBlackTree<Long> test3 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.ASYNC)) {
+                assertContainsExactly(expected, test3);
+                test3.checkInvariants();
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Tester that cuts the log off inside its last record, the way a crash during the write leaves
+     * it, and checks that recovery keeps every complete record, drops the torn one and appends
+     * new records after the last complete one
+     * */
+    @Test
+    public void testTornTail() throws IOException {
+        Path directory = Files.createTempDirectory("rbt");
+        try {
+            Path log = directory.resolve(DurableRedBlackTree.LOG_FILE);
+            try (DurableRedBlackTree<Long> test4 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.SYNC)) {
+                for (long value = 0; value < 100; value++) {
+                    test4.insert(value);
+                }
+            }
+            // every length between two record boundaries keeps the same 99 complete records
+            for (int cut = 1; cut < RECORD_BYTES; cut++) {
+                try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                    channel.truncate(DurableRedBlackTree.LOG_HEADER_BYTES + 100L * RECORD_BYTES - cut);
+                }
+                try (DurableRedBlackTree<Long> test5 = DurableRedBlackTree.open(directory,
+                        FixedWidthCodec.LONG, DurableRedBlackTree.Durability.SYNC)) {
+                    assertEquals(99, test5.size());
+                    assertFalse(test5.contains(99L));
+                    // put the last record back for the next cut
+                    test5.insert(99L);
+                }
+            }
+            try (DurableRedBlackTree<Long> test6 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.SYNC)) {
+                assertEquals(100, test6.size());
+                test6.checkInvariants();
+            }
+            // a log cut inside its header is started over
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                channel.truncate(5);
+            }
+            try (DurableRedBlackTree<Long> test7 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.SYNC)) {
+                assertTrue(test7.isEmpty());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Tester that overwrites part of a record in the middle of the log, the way a torn sector
+     * write leaves it, and checks that replay stops at that record and drops the rest
+     * */
+    @Test
+    public void testCorruptRecord() throws IOException {
+        Path directory = Files.createTempDirectory("rbt");
+        try {
+            try (DurableRedBlackTree<Long> test8 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.ASYNC)) {
+                for (long value = 0; value < 100; value++) {
+                    test8.insert(value);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(
+                    directory.resolve(DurableRedBlackTree.LOG_FILE), StandardOpenOption.WRITE)) {
+                // flip the low byte of the value in record 60
+                channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}),
+                        DurableRedBlackTree.LOG_HEADER_BYTES + 60L * RECORD_BYTES + Long.BYTES);
+            }
+            try (DurableRedBlackTree<Long> test9 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.ASYNC)) {
+                assertEquals(60, test9.size());
+                assertTrue(test9.contains(59L));
+                assertFalse(test9.contains(60L));
+                assertFalse(test9.contains(99L));
+            }
+            assertEquals(DurableRedBlackTree.LOG_HEADER_BYTES + 60L * RECORD_BYTES,
+                    Files.size(directory.resolve(DurableRedBlackTree.LOG_FILE)));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Tester that checks that changes made in NONE mode only survive through a checkpoint
+     * */
+    @Test
+    public void testNoneNeedsCheckpoint() throws IOException {
+        Path directory = Files.createTempDirectory("rbt");
+        try {
+            try (DurableRedBlackTree<Long> test10 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.NONE)) {
+                test10.insert(1L);
+                test10.checkpoint();
+                test10.insert(2L);
+            }
+            try (DurableRedBlackTree<Long> test11 = DurableRedBlackTree.open(directory,
+                    FixedWidthCodec.LONG, DurableRedBlackTree.Durability.NONE)) {
+                assertTrue(test11.contains(1L));
+                assertFalse(test11.contains(2L));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Checks that tree holds exactly the values in expected.
+     */
+    private static void assertContainsExactly(TreeSet<Long> expected, DurableRedBlackTree<Long> tree) {
+        assertEquals(expected.size(), tree.size());
+        for (long value = -1; value < 2000; value++) {
+            assertEquals(expected.contains(value), tree.contains(value));
+        }
+    }
+
+    /**
+     * Deletes directory and the files in it.
+     */
+    private static void delete(Path directory) throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
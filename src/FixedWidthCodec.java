@@ -0,0 +1,96 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to and from a fixed number of bytes, so that they can be stored in
+ * equally sized records outside of the Java heap.
+ */
+public interface FixedWidthCodec<T extends Comparable<T>> {
+
+    /**
+     * Codec for Long values, stored as 8 big-endian bytes.
+     */
+    public static final FixedWidthCodec<Long> LONG = new FixedWidthCodec<Long>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(Long value, ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+
+        @Override
+        public int compare(Long value, ByteBuffer buffer, int offset) {
+            return Long.compare(value, buffer.getLong(offset));
+        }
+    };
+
+    /**
+     * Codec for Integer values, stored as 4 big-endian bytes.
+     */
+    public static final FixedWidthCodec<Integer> INTEGER = new FixedWidthCodec<Integer>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(Integer value, ByteBuffer buffer, int offset) {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+
+        @Override
+        public int compare(Integer value, ByteBuffer buffer, int offset) {
+            return Integer.compare(value, buffer.getInt(offset));
+        }
+    };
+
+    /**
+     * @return the number of bytes every encoded value takes
+     */
+    public int width();
+
+    /**
+     * Writes value into buffer at offset, using exactly width() bytes.
+     *
+     * @param value  the value to write
+     * @param buffer the buffer to write to
+     * @param offset the absolute position of the first byte to write
+     */
+    public void encode(T value, ByteBuffer buffer, int offset);
+
+    /**
+     * Reads a value that encode wrote into buffer at offset.
+     *
+     * @param buffer the buffer to read from
+     * @param offset the absolute position of the first byte to read
+     * @return the decoded value
+     */
+    public T decode(ByteBuffer buffer, int offset);
+
+    /**
+     * Compares value with the value encoded in buffer at offset, in the natural ordering of T.
+     * Codecs should override this to compare without decoding into a new object.
+     *
+     * @param value  the value to compare
+     * @param buffer the buffer holding the other value
+     * @param offset the absolute position of the other value
+     * @return a negative number, zero or a positive number when value is smaller than, equal to
+     * or larger than the stored value
+     */
+    public default int compare(T value, ByteBuffer buffer, int offset) {
+        return value.compareTo(decode(buffer, offset));
+    }
+
+}
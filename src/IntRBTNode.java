@@ -0,0 +1,81 @@
+/**
+ * This class represents a node in an IntRedBlackTree. It stores its value as a primitive
+ * int instead of a reference to an Integer, which saves the memory of the boxed value and the
+ * indirection to reach it on every comparison.
+ */
+public class IntRBTNode {
+
+    // stores the data value for the node
+    protected int data;
+
+    // reference to the node's parent
+    protected IntRBTNode up = null;
+    // reference to the node's left child
+    protected IntRBTNode left = null;
+    // reference to the node's right child
+    protected IntRBTNode right = null;
+
+    // store whether this is a red or black node
+    protected boolean isRed = true;
+
+    /**
+     * Constructor that creates a new red node with the value data.
+     * Both parent and child references of the new node are initialized to null.
+     *
+     * @param data the value the new node stores
+     */
+    public IntRBTNode(int data) {
+        this.data = data;
+    }
+
+    /**
+     * @return value stored in this node
+     */
+    public int getData() {
+        return this.data;
+    }
+
+    /**
+     * @return the reference to the left child of this node,
+     * or null if this node has no left child
+     */
+    public IntRBTNode getLeft() {
+        return this.left;
+    }
+
+    /**
+     * @return the reference to the right child of this node,
+     * or null if this node has no right child
+     */
+    public IntRBTNode getRight() {
+        return this.right;
+    }
+
+    /**
+     * @return the reference to the parent of this node,
+     * or null if it has no parent
+     */
+    public IntRBTNode getUp() {
+        return this.up;
+    }
+
+    /**
+     * Returns a boolean that indicates if this is a red or black node.
+     *
+     * @return true if the node is red, false if it is black
+     */
+    public boolean isRed() {
+        return this.isRed;
+    }
+
+    /**
+     * Returns a string representation for this node.
+     *
+     * @return a string representation of the node's value and color
+     */
+    @Override
+    public String toString() {
+        return this.data + (this.isRed() ? "(r)" : "(b)");
+    }
+
+}
@@ -0,0 +1,139 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * TreeMetrics that turns every insert into a JDK Flight Recorder event, so slow inserts can be
+ * found in a recording together with the rotations, recolors and comparisons they made. It also
+ * registers a periodic event that reports the height and size of the tree. While no recording
+ * has the insert event enabled, insertStarted and insertEnded only check that and return, but the
+ * calls themselves and the counting of rotations and recolors remain: MetricsBenchmark measured
+ * 10 to 30 percent fewer random inserts per second than with no metrics attached.
+ *
+ * java -XX:StartFlightRecording:filename=tree.jfr ...
+ * jfr print --events TreeInsert tree.jfr
+ */
+public class JfrTreeMetrics implements TreeMetrics, AutoCloseable {
+
+    /**
+     * One insert into a tree, from the start of the search to the end of the repair.
+     */
+    @Name("TreeInsert")
+    @Label("Tree Insert")
+    @Category("Red Black Tree")
+    @Description("An insert, with the work it took to find the position and repair the tree")
+    static class InsertEvent extends Event {
+        @Label("Depth")
+        int depth;
+        @Label("Comparisons")
+        @Description("Values compared with on the way down: the depth for a new value, one more"
+                + " for a stored one")
+        int comparisons;
+        @Label("Left Rotations")
+        int leftRotations;
+        @Label("Right Rotations")
+        int rightRotations;
+        @Label("Recolors")
+        int recolors;
+        @Label("Restructures")
+        int restructures;
+    }
+
+    /**
+     * The shape of a tree, sampled once per period while a recording runs.
+     */
+    @Name("TreeShape")
+    @Label("Tree Shape")
+    @Category("Red Black Tree")
+    @Period("1 s")
+    static class ShapeEvent extends Event {
+        @Label("Height")
+        int height;
+        @Label("Size")
+        int size;
+    }
+
+    // the event of the insert in progress, reused until one is committed
+    private InsertEvent event = new InsertEvent();
+    // whether the insert in progress is timed, decided when it starts so that a recording
+    // starting in the middle of an insert doesn't commit an event that never began
+    private boolean timing;
+    // emits the shape events of the observed tree
+    private final Runnable shapeHook;
+
+    /**
+     * Creates metrics for tree and registers its periodic shape event. The caller still has to
+     * pass the metrics to tree.setMetrics.
+     *
+     * @param tree the tree whose height and size the shape event reports
+     */
+    public JfrTreeMetrics(BinarySearchTree<?> tree) {
+        shapeHook = () -> {
+            ShapeEvent shape = new ShapeEvent();
+            if (shape.isEnabled()) {
+                // height walks the whole tree, which is only worth it when someone records it
+                shape.height = tree.height();
+                shape.size = tree.size();
+                shape.commit();
+            }
+        };
+        FlightRecorder.addPeriodicEvent(ShapeEvent.class, shapeHook);
+    }
+
+    @Override
+    public void insertStarted() {
+        timing = event.isEnabled();
+        if (!timing) {
+            return;
+        }
+        event.leftRotations = event.rightRotations = 0;
+        event.recolors = event.restructures = 0;
+        event.begin();
+    }
+
+    @Override
+    public void insertEnded(int depth, int comparisons) {
+        if (!timing) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.depth = depth;
+            event.comparisons = comparisons;
+            event.commit();
+            // a committed event belongs to the recording, any other one is started again
+            event = new InsertEvent();
+        }
+    }
+
+    @Override
+    public void rotated(boolean left) {
+        if (left) {
+            event.leftRotations++;
+        } else {
+            event.rightRotations++;
+        }
+    }
+
+    @Override
+    public void recolored() {
+        event.recolors++;
+    }
+
+    @Override
+    public void restructured() {
+        event.restructures++;
+    }
+
+    /**
+     * Stops emitting shape events for the tree.
+     */
+    @Override
+    public void close() {
+        FlightRecorder.removePeriodicEvent(shapeHook);
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Base of the red black trees whose red nodes all lean to one side, LeftLeaningRedBlackTree and
+ * AATree. Both insert a new red node with BinarySearchTree's insertHelper and then repair the
+ * tree from its parent up with their own balance step; this class does the insert, reports it
+ * to metrics, and checks the invariants both trees share. Besides the inserts and the rotations
+ * BSTRotation reports, LeftLeaningRedBlackTree reports its color flips as recolors, while the
+ * repairs of AATree are all rotations.
+ * */
+abstract class LeaningRedBlackTree<T extends Comparable<T>> extends BSTRotation<T> {
+
+    /**
+     * Constructor to create a new empty tree.
+     *
+     * @param multiset true to count equal values instead of storing them once
+     */
+    LeaningRedBlackTree(boolean multiset) {
+        super(multiset);
+    }
+
+    /**
+     * Inserts data with BinarySearchTree's insertHelper as a new red node, repairs the tree
+     * above it with balance and makes the root black.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void insert(Comparable data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        if (metrics != null) {
+            metrics.insertStarted();
+        }
+        int depth = 0;
+        int comparisons = 0;
+        if (root == null) {
+            root = createNode((T) data);
+            size++;
+            modCount++;
+        } else {
+            RBTNode<T> newNode = (RBTNode<T>) insertHelper((T) data, root);
+            if (metrics != null) {
+                // derived like RedBlackTree does, from one comparison per level
+                depth = insertDepth((T) data, newNode);
+                comparisons = newNode != null ? depth : depth + 1;
+            }
+            // no new node means a duplicate was counted or dropped, which needs no repair
+            if (newNode != null) {
+                balance(newNode.getUp());
+            }
+        }
+        ((RBTNode<T>) root).isRed = false;
+        if (metrics != null) {
+            metrics.insertEnded(depth, comparisons);
+        }
+    }
+
+    /**
+     * Repairs node and its ancestors, from the bottom up, after a red child was added below node.
+     *
+     * @param node the parent of the newly inserted node
+     */
+    protected abstract void balance(RBTNode<T> node);
+
+    /**
+     * Checks that no child of node is red on the side this tree doesn't lean to.
+     *
+     * @throws IllegalStateException if a child of node leans the wrong way
+     */
+    protected abstract void checkLeaning(RBTNode<T> node);
+
+    /**
+     * Creates the red nodes this tree is made of.
+     */
+    @Override
+    protected BSTNode<T> createNode(T data) {
+        return new RBTNode<T>(data);
+    }
+
+    static boolean isRed(RBTNode<?> node) {
+        return node != null && node.isRed();
+    }
+
+    /**
+     * Checks the invariants of the whole tree: those of RedBlackTree.checkInvariants, and the
+     * leaning rule checkLeaning checks.
+     *
+     * @throws IllegalStateException if one of the invariants does not hold
+     */
+    @SuppressWarnings("unchecked")
+    protected void checkInvariants() {
+        if (root == null) {
+            if (size != 0) {
+                throw new IllegalStateException("empty tree with size " + size);
+            }
+            return;
+        }
+        if (root.getUp() != null || ((RBTNode<T>) root).isRed()) {
+            throw new IllegalStateException("root must be black and have no parent");
+        }
+        int[] count = new int[1];
+        checkInvariants((RBTNode<T>) root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("size is " + size + " but tree holds " + count[0]);
+        }
+    }
+
+    /**
+     * Checks the invariants of the subtree rooted at node, whose values must lie strictly between
+     * low and high (either of which may be null for no bound), and counts its values.
+     *
+     * @return the number of black nodes on every path from node to a null child
+     */
+    private int checkInvariants(RBTNode<T> node, T low, T high, int[] count) {
+        if (node == null) {
+            return 0;
+        }
+        count[0] += node.count;
+        if ((low != null && compare(node.getData(), low) <= 0)
+                || (high != null && compare(node.getData(), high) >= 0)) {
+            throw new IllegalStateException("out of order: " + node);
+        }
+        if ((node.getLeft() != null && node.getLeft().getUp() != node)
+                || (node.getRight() != null && node.getRight().getUp() != node)) {
+            throw new IllegalStateException("broken parent reference below " + node);
+        }
+        checkLeaning(node);
+        if (node.isRed() && (isRed(node.getLeft()) || isRed(node.getRight()))) {
+            throw new IllegalStateException("red node with red child: " + node);
+        }
+        if (node.count < 1 || (node.count > 1 && !multiset) || node.subtreeSize
+                != node.count + subtreeSize(node.getLeft()) + subtreeSize(node.getRight())) {
+            throw new IllegalStateException("wrong subtree size at " + node);
+        }
+        int leftBlackHeight = checkInvariants(node.getLeft(), low, node.getData(), count);
+        int rightBlackHeight = checkInvariants(node.getRight(), node.getData(), high, count);
+        if (leftBlackHeight != rightBlackHeight) {
+            throw new IllegalStateException("unequal black heights below " + node);
+        }
+        return leftBlackHeight + (node.isRed() ? 0 : 1);
+    }
+}
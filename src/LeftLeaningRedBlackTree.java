@@ -0,0 +1,88 @@
+/**
+ * Left-leaning red black tree (Sedgewick, 2-3 variant): a red black tree whose red nodes are
+ * always left children, so every black node with its red child stands for one node of a 2-3
+ * tree. That rule leaves three repairs instead of the aunt cases of RedBlackTree, applied in the
+ * same order at each node on the way back up from a new node: rotate a red right child to the
+ * left, rotate the upper of two red left children in a row to the right, and flip the colors
+ * of a node with two red children. The repair stops once two levels in a row needed none of
+ * them, because no node further up looks deeper than its grandchildren.
+ *
+ * The tree is built from the same RBTNode objects and BSTRotation rotations as RedBlackTree,
+ * so everything BinarySearchTree offers works on it unchanged. It has no remove.
+ * */
+public class LeftLeaningRedBlackTree<T extends Comparable<T>> extends LeaningRedBlackTree<T> {
+
+    /**
+     * Constructor to create a new empty tree that stores every value once.
+     */
+    public LeftLeaningRedBlackTree() {
+        super(false);
+    }
+
+    /**
+     * Constructor to create a new empty tree.
+     *
+     * @param multiset true to count equal values instead of storing them once
+     */
+    public LeftLeaningRedBlackTree(boolean multiset) {
+        super(multiset);
+    }
+
+    /**
+     * Applies the three repairs to node and its ancestors, from the bottom up.
+     *
+     * @param node the parent of the newly inserted node
+     */
+    @Override
+    protected void balance(RBTNode<T> node) {
+        // number of levels in a row that needed no repair
+        int unchanged = 0;
+        while (node != null && unchanged < 2) {
+            boolean changed = false;
+            // a red right child leans the wrong way
+            if (isRed(node.getRight()) && !isRed(node.getLeft())) {
+                node = rotateUp(node.getRight(), node);
+                changed = true;
+            }
+            // two red left children in a row form a 4-node, which is balanced around the middle
+            if (isRed(node.getLeft()) && isRed(node.getLeft().getLeft())) {
+                node = rotateUp(node.getLeft(), node);
+                changed = true;
+            }
+            // a balanced 4-node is split, which passes its middle value up as a red node
+            if (isRed(node.getLeft()) && isRed(node.getRight())) {
+                node.flipColor();
+                node.getLeft().flipColor();
+                node.getRight().flipColor();
+                if (metrics != null) {
+                    metrics.recolored();
+                }
+                changed = true;
+            }
+            unchanged = changed ? 0 : unchanged + 1;
+            node = node.getUp();
+        }
+    }
+
+    /**
+     * Rotates child above parent. child takes over the color of parent, which turns red.
+     *
+     * @return child, the new root of the rotated subtree
+     */
+    private RBTNode<T> rotateUp(RBTNode<T> child, RBTNode<T> parent) {
+        rotate(child, parent);
+        child.isRed = parent.isRed;
+        parent.isRed = true;
+        return child;
+    }
+
+    /**
+     * Checks that no right child of node is red.
+     */
+    @Override
+    protected void checkLeaning(RBTNode<T> node) {
+        if (isRed(node.getRight())) {
+            throw new IllegalStateException("red right child below " + node);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for LeftLeaningRedBlackTree.
+ * */
+public class LeftLeaningRedBlackTreeTest {
+
+    /**
+     * Tester that inserts 1 to 7 in ascending order, where every insert adds a red right child
+     * that has to be rotated to the left
+     * */
+    @Test
+    public void testAscending() {
+        LeftLeaningRedBlackTree<Integer> test1 = new LeftLeaningRedBlackTree<>();
+        for (int i = 1; i <= 7; i++) {
+            test1.insert(i);
+            test1.checkInvariants();
+        }
+        assertEquals("[ 4(b), 2(b), 6(b), 1(b), 3(b), 5(b), 7(b) ]",
+                test1.root.toLevelOrderString());
+        test1.insert(8);
+        assertEquals("[ 4(b), 2(b), 6(b), 1(b), 3(b), 5(b), 8(b), 7(r) ]",
+                test1.root.toLevelOrderString());
+    }
+
+    /**
+     * Tester that inserts random values, with duplicates, checking the invariants after every
+     * insert and the contents against java.util.TreeSet
+     * */
+    @Test
+    public void testRandomInserts() {
+        java.util.Random random = new java.util.Random(24);
+        for (boolean multiset : new boolean[] {false, true}) {
+            LeftLeaningRedBlackTree<Integer> test2 = new LeftLeaningRedBlackTree<>(multiset);
+            java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+            for (int i = 0; i < 3000; i++) {
+                int value = random.nextInt(1000);
+                test2.insert(value);
+                expected.add(value);
+                test2.checkInvariants();
+            }
+            assertEquals(multiset ? 3000 : expected.size(), test2.size());
+            java.util.List<Integer> actual = new java.util.ArrayList<>();
+            test2.forEach(actual::add);
+            assertEquals(new java.util.ArrayList<>(expected), new java.util.ArrayList<>(
+                    new java.util.TreeSet<>(actual)));
+            for (int value = 0; value < 1000; value++) {
+                assertEquals(expected.contains(value), test2.contains(value));
+            }
+        }
+        assertThrows(NullPointerException.class, () -> new LeftLeaningRedBlackTree<>().insert(null));
+    }
+
+    /**
+     * Tester that inserts 10^6 sorted values and checks that the height stays within the
+     * 2 log2(n) bound of a red black tree
+     * */
+    @Test
+    public void testSortedStress() {
+        LeftLeaningRedBlackTree<Integer> test3 = new LeftLeaningRedBlackTree<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            test3.insert(i);
+        }
+        test3.checkInvariants();
+        assertEquals(1_000_000, test3.size());
+        assertTrue(test3.height() <= 40, "height " + test3.height());
+    }
+
+    /**
+     * Tester that attaches TreeStatistics and checks that inserts are reported next to the
+     * rotations they cause, with the depth of each value
+     * */
+    @Test
+    public void testMetrics() {
+        LeftLeaningRedBlackTree<Integer> test4 = new LeftLeaningRedBlackTree<>();
+        TreeStatistics statistics = new TreeStatistics();
+        test4.setMetrics(statistics);
+        for (int i = 0; i < 100; i++) {
+            test4.insert(i);
+        }
+        assertEquals(100, statistics.getInserts());
+        assertTrue(statistics.getLeftRotations() + statistics.getRightRotations() > 0);
+        assertTrue(statistics.getMaxDepth() > 0);
+        // the value at the root is stored already, which takes one comparison at depth 0
+        statistics.reset();
+        test4.insert(test4.root.getData());
+        assertEquals(1, statistics.getInserts());
+        assertEquals(1, statistics.getComparisons());
+        assertEquals(0, statistics.getMaxDepth());
+        test4.checkInvariants();
+    }
+}
@@ -0,0 +1,214 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Red black tree that stores primitive long values. It follows the same insertion and repair
+ * rules as RedBlackTree, but keeps values unboxed in LongRBTNode so that neither insert nor
+ * contains allocates a Long.
+ * */
+public class LongRedBlackTree implements LongSortedCollection {
+    // root node of the tree
+    protected LongRBTNode root;
+
+    // number of values stored in the tree
+    protected int size;
+
+    /**
+     * Inserts a new data value into the tree, and repairs any red property violation that the new
+     * red node causes. Values that are already stored are not inserted again.
+     *
+     * @param data the new value being inserted
+     */
+    @Override
+    public void insert(long data) {
+        // if tree is empty then the new node becomes the root
+        if (root == null) {
+            root = new LongRBTNode(data);
+            root.isRed = false;
+            size++;
+            return;
+        }
+        // search down through the tree for the null child the new node replaces
+        LongRBTNode parent = root;
+        // the last comparison also tells on which side of parent the new node goes
+        int comparison;
+        while (true) {
+            comparison = Long.compare(data, parent.data);
+            // equal data is already stored, so nothing is added
+            if (comparison == 0) {
+                return;
+            }
+            LongRBTNode next = comparison < 0 ? parent.left : parent.right;
+            if (next == null) {
+                break;
+            }
+            parent = next;
+        }
+        LongRBTNode newNode = new LongRBTNode(data);
+        newNode.up = parent;
+        if (comparison < 0) {
+            parent.left = newNode;
+        } else {
+            parent.right = newNode;
+        }
+        size++;
+        ensureRedProperty(newNode);
+        root.isRed = false;
+    }
+
+    /**
+     * Checks if a new red node causes a red property violation by having a red parent, and
+     * repairs this violation and any additional violations that the repair creates higher up
+     * in the tree.
+     *
+     * @param newRedNode a newly inserted red node
+     */
+    protected void ensureRedProperty(LongRBTNode newRedNode) {
+        LongRBTNode parent = newRedNode.up;
+        // a red parent always has a parent, since the root is black
+        while (parent != null && parent.isRed) {
+            LongRBTNode grandParent = parent.up;
+            LongRBTNode aunt = grandParent.left == parent ? grandParent.right : grandParent.left;
+            // case 1 where aunt is red: recolor and continue with the grandparent
+            if (aunt != null && aunt.isRed) {
+                parent.isRed = false;
+                aunt.isRed = false;
+                grandParent.isRed = true;
+                newRedNode = grandParent;
+                parent = newRedNode.up;
+                continue;
+            }
+            // case 3 where the new node is an inner child: rotate it to the outside first
+            if ((grandParent.left == parent) != (parent.left == newRedNode)) {
+                rotate(newRedNode, parent);
+                LongRBTNode rotatedDown = parent;
+                parent = newRedNode;
+                newRedNode = rotatedDown;
+            }
+            // case 2 where the new node is an outer child: rotate parent above grandparent
+            rotate(parent, grandParent);
+            parent.isRed = false;
+            grandParent.isRed = true;
+            return;
+        }
+    }
+
+    /**
+     * Rotates child into the position of parent. A left child is rotated right and a right child
+     * is rotated left.
+     *
+     * @param child  is the node being rotated from child to parent position
+     * @param parent is the node being rotated from parent to child position
+     */
+    private void rotate(LongRBTNode child, LongRBTNode parent) {
+        LongRBTNode grandParent = parent.up;
+        if (parent.left == child) {
+            // right rotation: child's right subtree moves over to parent
+            parent.left = child.right;
+            if (child.right != null) {
+                child.right.up = parent;
+            }
+            child.right = parent;
+        } else {
+            // left rotation: child's left subtree moves over to parent
+            parent.right = child.left;
+            if (child.left != null) {
+                child.left.up = parent;
+            }
+            child.left = parent;
+        }
+        parent.up = child;
+        child.up = grandParent;
+        // child takes parent's place below the grandparent, or as the root
+        if (grandParent == null) {
+            root = child;
+        } else if (grandParent.left == parent) {
+            grandParent.left = child;
+        } else {
+            grandParent.right = child;
+        }
+    }
+
+    /**
+     * Check whether data is stored in the tree.
+     *
+     * @param data the value to check for in the tree
+     * @return true if the tree contains data, and false otherwise
+     */
+    @Override
+    public boolean contains(long data) {
+        LongRBTNode current = root;
+        while (current != null) {
+            int comparison = Long.compare(data, current.data);
+            if (comparison == 0) {
+                return true;
+            }
+            current = comparison < 0 ? current.left : current.right;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of values in the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains no values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Removes all values from the tree.
+     */
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Tester that builds the same tree as RedBlackTree's red aunt test, using long values
+     * */
+    @Test
+    public void testInsertShape() {
+        LongRedBlackTree test1 = new LongRedBlackTree();
+        long[] values = {10, 6, 23, 1, 8, 25, 7};
+        for (long value : values) {
+            test1.insert(value);
+        }
+        assertEquals("10(b)", test1.root.toString());
+        assertEquals("6(r)", test1.root.getLeft().toString());
+        assertEquals("8(b)", test1.root.getLeft().getRight().toString());
+        assertEquals("7(r)", test1.root.getLeft().getRight().getLeft().toString());
+        assertEquals(7, test1.size());
+    }
+
+    /**
+     * Tester that inserts sorted and random values and compares contains with a TreeSet
+     * */
+    @Test
+    public void testContains() {
+        LongRedBlackTree test2 = new LongRedBlackTree();
+        java.util.TreeSet<Long> expected = new java.util.TreeSet<>();
+        java.util.Random random = new java.util.Random(5);
+        for (int i = 0; i < 5000; i++) {
+            long value = i < 1000 ? i : random.nextLong();
+            test2.insert(value);
+            expected.add(value);
+        }
+        assertEquals(expected.size(), test2.size());
+        for (Long value : expected) {
+            assertTrue(test2.contains(value));
+        }
+        assertFalse(test2.contains(-1));
+        test2.clear();
+        assertTrue(test2.isEmpty());
+        assertFalse(test2.contains(5));
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * This interface defines an ADT for data structures that support storing a
+ * collection of primitive long values in their natural ordering, without boxing
+ * them into Long objects.
+ */
+public interface LongSortedCollection {
+
+    /**
+     * Inserts a new data value into the sorted collection.
+     *
+     * @param data the new value being inserted
+     */
+    public void insert(long data);
+
+    /**
+     * Check whether data is stored in the collection.
+     *
+     * @param data the value to check for in the collection
+     * @return true if the collection contains data one or more times,
+     * and false otherwise
+     */
+    public boolean contains(long data);
+
+    /**
+     * Counts the number of values in the collection, with each duplicate value
+     * being counted separately within the value returned.
+     *
+     * @return the number of values in the collection, including duplicates
+     */
+    public int size();
+
+    /**
+     * Checks if the collection is empty.
+     *
+     * @return true if the collection contains 0 values, false otherwise
+     */
+    public boolean isEmpty();
+
+    /**
+     * Removes all values and duplicates from the collection.
+     */
+    public void clear();
+
+}
@@ -0,0 +1,532 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Red black tree whose nodes live in a memory-mapped file instead of the Java heap, so it can
+ * hold more values than fit in the heap and keeps them across restarts. Values are stored with a
+ * FixedWidthCodec in equally sized records:
+ *
+ * [ left (int) | right (int) | up (int) | color (byte) | padding | value (codec width) ]
+ *
+ * Child and parent links are record numbers, which the tree turns into file offsets by
+ * multiplying with the record size. Record 0 is never used, so 0 stands for a missing node. The
+ * file starts with a header holding the root, the size and the number of used records, and grows
+ * in chunks that are mapped one at a time. Reopening a file maps it again without reading or
+ * rebuilding anything.
+ *
+ * Changes are written into the mapped file and reach the storage device through the operating
+ * system's page cache. Only sync() and close() leave the file consistent: a process killed in the
+ * middle of an insert or its rotations leaves records half linked, and a machine crash loses
+ * whatever was not forced to the device yet. open() rejects a header whose fields point outside
+ * the file, but can't detect half linked records.
+ * */
+public class MappedRedBlackTree<T extends Comparable<T>> implements SortedCollection<T>, Closeable {
+
+    // record number that stands for a missing node
+    private static final int NIL = 0;
+    // identifies files written by this class ("RBT1")
+    private static final int MAGIC = 0x52425431;
+    private static final int VERSION = 1;
+    // bytes reserved for the header at the start of the file
+    private static final int HEADER_BYTES = 64;
+    // positions of the header fields
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int WIDTH_OFFSET = 8;
+    private static final int CHUNK_SHIFT_OFFSET = 12;
+    private static final int ROOT_OFFSET = 16;
+    private static final int SIZE_OFFSET = 20;
+    private static final int NEXT_UNUSED_OFFSET = 24;
+    // positions of the fields within a record
+    private static final int LEFT = 0;
+    private static final int RIGHT = 4;
+    private static final int UP = 8;
+    private static final int COLOR = 12;
+    private static final int VALUE = 16;
+    private static final byte RED = 1;
+    private static final byte BLACK = 0;
+    // a new file grows in chunks of 2^16 records unless another chunk size is requested
+    private static final int DEFAULT_CHUNK_SHIFT = 16;
+
+    // converts values to and from their stored bytes
+    private final FixedWidthCodec<T> codec;
+    // the open file
+    private final FileChannel channel;
+    // the mapped header
+    private final MappedByteBuffer header;
+    // the mapped chunks of records, chunk i holds records [i << chunkShift, (i + 1) << chunkShift)
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    // each chunk holds 2^chunkShift records
+    private final int chunkShift;
+    // bytes per record, fixed by the codec's width
+    private final int recordBytes;
+
+    // copies of the header fields, written through to the header on every change
+    private int root;
+    private int size;
+    private int nextUnused;
+
+    /**
+     * Opens the tree stored in file, or creates a new empty tree there when the file doesn't
+     * exist or is empty.
+     *
+     * @param file  the file holding the tree
+     * @param codec converts values to and from their stored bytes
+     * @return the opened tree
+     * @throws IOException              if the file can't be opened or mapped
+     * @throws IllegalArgumentException if the file is not a tree file, its header holds values
+     *                                  outside the file, or it was written with a codec of a
+     *                                  different width
+     */
+    public static <T extends Comparable<T>> MappedRedBlackTree<T> open(Path file,
+                                                                        FixedWidthCodec<T> codec)
+            throws IOException {
+        return open(file, codec, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Opens the tree stored in file, or creates a new empty tree there that grows the file by
+     * 2^chunkShift records at a time. An existing file keeps the chunk size it was created with.
+     *
+     * @param file       the file holding the tree
+     * @param codec      converts values to and from their stored bytes
+     * @param chunkShift base 2 logarithm of the number of records per chunk of a new file
+     * @return the opened tree
+     * @throws IOException              if the file can't be opened or mapped
+     * @throws IllegalArgumentException if the file is not a tree file, its header holds values
+     *                                  outside the file, or it was written with a codec of a
+     *                                  different width
+     */
+    public static <T extends Comparable<T>> MappedRedBlackTree<T> open(Path file,
+                                                                        FixedWidthCodec<T> codec,
+                                                                        int chunkShift)
+            throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new MappedRedBlackTree<>(channel, codec, chunkShift);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the header and existing chunks of channel, writing a new header if the file is empty.
+     */
+    private MappedRedBlackTree(FileChannel channel, FixedWidthCodec<T> codec, int chunkShift)
+            throws IOException {
+        this.codec = codec;
+        this.channel = channel;
+        this.recordBytes = VALUE + codec.width();
+        boolean isNew = channel.size() == 0;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (isNew) {
+            if (!isValidChunkShift(chunkShift)) {
+                throw new IllegalArgumentException("chunk shift out of range: " + chunkShift);
+            }
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(WIDTH_OFFSET, codec.width());
+            header.putInt(CHUNK_SHIFT_OFFSET, chunkShift);
+            header.putInt(ROOT_OFFSET, NIL);
+            header.putInt(SIZE_OFFSET, 0);
+            // record 0 is reserved for NIL
+            header.putInt(NEXT_UNUSED_OFFSET, 1);
+        } else if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IllegalArgumentException("not a tree file of version " + VERSION);
+        } else if (header.getInt(WIDTH_OFFSET) != codec.width()) {
+            throw new IllegalArgumentException("file stores " + header.getInt(WIDTH_OFFSET)
+                    + " byte values but the codec writes " + codec.width());
+        }
+        this.chunkShift = header.getInt(CHUNK_SHIFT_OFFSET);
+        this.root = header.getInt(ROOT_OFFSET);
+        this.size = header.getInt(SIZE_OFFSET);
+        this.nextUnused = header.getInt(NEXT_UNUSED_OFFSET);
+        if (!isNew) {
+            checkHeader(channel.size());
+        }
+        // map every chunk that holds used records
+        while ((long) chunks.size() << this.chunkShift < nextUnused) {
+            mapChunk();
+        }
+    }
+
+    /**
+     * @return true if chunks of 2^chunkShift records can be mapped, each as a single buffer that
+     * can't be larger than 2GB
+     */
+    private boolean isValidChunkShift(int chunkShift) {
+        return chunkShift >= 0 && chunkShift <= 30
+                && (long) recordBytes << chunkShift <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Checks the header fields read from an existing file of fileBytes bytes before any of them is
+     * used: the chunk size must be mappable, the used records must lie within the file, and root
+     * and size must fit the used records.
+     *
+     * @throws IllegalArgumentException if one of the fields is out of range
+     */
+    private void checkHeader(long fileBytes) {
+        if (!isValidChunkShift(chunkShift)) {
+            throw new IllegalArgumentException("corrupt header: chunk shift " + chunkShift);
+        }
+        long records = (fileBytes - HEADER_BYTES) / recordBytes;
+        // record 0 is reserved for NIL, so at least one record counts as used, even in a file
+        // that never mapped a chunk
+        if (nextUnused < 1 || (nextUnused > 1 && nextUnused > records)) {
+            throw new IllegalArgumentException("corrupt header: " + nextUnused
+                    + " used records but the file holds " + records);
+        }
+        if (size < 0 || size >= nextUnused) {
+            throw new IllegalArgumentException("corrupt header: size " + size);
+        }
+        if (root < 0 || root >= nextUnused || (root == NIL) != (size == 0)) {
+            throw new IllegalArgumentException("corrupt header: root " + root);
+        }
+    }
+
+    /**
+     * Inserts a new data value into the tree, and repairs any red property violation that the new
+     * red node causes. Values that are already stored are not inserted again.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     * @throws UncheckedIOException if the file can't be grown
+     */
+    @Override
+    public void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        // if tree is empty then the new node becomes the root
+        if (root == NIL) {
+            setRoot(newNode(data));
+            setColor(root, BLACK);
+            setSize(size + 1);
+            return;
+        }
+        // search down through the tree for the missing child the new node replaces
+        int parent = root;
+        int comparison;
+        while (true) {
+            comparison = compare(data, parent);
+            // equal data is already stored, so nothing is added
+            if (comparison == 0) {
+                return;
+            }
+            int next = comparison < 0 ? left(parent) : right(parent);
+            if (next == NIL) {
+                break;
+            }
+            parent = next;
+        }
+        int node = newNode(data);
+        setUp(node, parent);
+        if (comparison < 0) {
+            setLeft(parent, node);
+        } else {
+            setRight(parent, node);
+        }
+        setSize(size + 1);
+        ensureRedProperty(node);
+        setColor(root, BLACK);
+    }
+
+    /**
+     * Checks if a new red node causes a red property violation by having a red parent, and
+     * repairs this violation and any additional violations that the repair creates higher up in
+     * the tree. Uses the same cases as RedBlackTree.ensureRedProperty.
+     *
+     * @param newRedNode record number of a newly inserted red node
+     */
+    protected void ensureRedProperty(int newRedNode) {
+        int parent = up(newRedNode);
+        // a red parent always has a parent, since the root is black
+        while (parent != NIL && isRed(parent)) {
+            int grandParent = up(parent);
+            boolean parentIsLeft = left(grandParent) == parent;
+            int aunt = parentIsLeft ? right(grandParent) : left(grandParent);
+            // case 1 where aunt is red: recolor and continue with the grandparent
+            if (isRed(aunt)) {
+                setColor(parent, BLACK);
+                setColor(aunt, BLACK);
+                setColor(grandParent, RED);
+                newRedNode = grandParent;
+                parent = up(newRedNode);
+                continue;
+            }
+            // case 3 where the new node is an inner child: rotate it to the outside first
+            if (parentIsLeft != (left(parent) == newRedNode)) {
+                rotate(newRedNode, parent);
+                int rotatedDown = parent;
+                parent = newRedNode;
+                newRedNode = rotatedDown;
+            }
+            // case 2 where the new node is an outer child: rotate parent above grandparent
+            rotate(parent, grandParent);
+            setColor(parent, BLACK);
+            setColor(grandParent, RED);
+            return;
+        }
+    }
+
+    /**
+     * Rotates child into the position of parent. A left child is rotated right and a right child
+     * is rotated left.
+     *
+     * @param child  record number of the node being rotated from child to parent position
+     * @param parent record number of the node being rotated from parent to child position
+     */
+    private void rotate(int child, int parent) {
+        int grandParent = up(parent);
+        if (left(parent) == child) {
+            // right rotation: child's right subtree moves over to parent
+            int moved = right(child);
+            setLeft(parent, moved);
+            if (moved != NIL) {
+                setUp(moved, parent);
+            }
+            setRight(child, parent);
+        } else {
+            // left rotation: child's left subtree moves over to parent
+            int moved = left(child);
+            setRight(parent, moved);
+            if (moved != NIL) {
+                setUp(moved, parent);
+            }
+            setLeft(child, parent);
+        }
+        setUp(parent, child);
+        setUp(child, grandParent);
+        // child takes parent's place below the grandparent, or as the root
+        if (grandParent == NIL) {
+            setRoot(child);
+        } else if (left(grandParent) == parent) {
+            setLeft(grandParent, child);
+        } else {
+            setRight(grandParent, child);
+        }
+    }
+
+    /**
+     * Check whether data is stored in the tree.
+     *
+     * @param data the value to check for in the tree
+     * @return true if the tree contains data, and false otherwise
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Comparable<T> data) {
+        if (data == null) {
+            return false;
+        }
+        int current = root;
+        while (current != NIL) {
+            int comparison = compare((T) data, current);
+            if (comparison == 0) {
+                return true;
+            }
+            current = comparison < 0 ? left(current) : right(current);
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of values in the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains no values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * Removes all values from the tree. The file keeps its length, and its records are reused by
+     * later inserts.
+     */
+    @Override
+    public void clear() {
+        setRoot(NIL);
+        setSize(0);
+        nextUnused = 1;
+        header.putInt(NEXT_UNUSED_OFFSET, nextUnused);
+    }
+
+    /**
+     * Writes all changes made through the mapped chunks to the storage device.
+     */
+    public void sync() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        header.force();
+    }
+
+    /**
+     * Writes all changes to the storage device and closes the file. The tree must not be used
+     * afterwards.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    /**
+     * Takes the next unused record, mapping a new chunk when the mapped ones are full, and turns
+     * it into a red node without children or parent that holds value.
+     *
+     * @return the record number of the new node
+     */
+    private int newNode(T value) {
+        if ((long) chunks.size() << chunkShift == nextUnused) {
+            try {
+                mapChunk();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int node = nextUnused++;
+        header.putInt(NEXT_UNUSED_OFFSET, nextUnused);
+        MappedByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        chunk.putInt(offset + LEFT, NIL);
+        chunk.putInt(offset + RIGHT, NIL);
+        chunk.putInt(offset + UP, NIL);
+        chunk.put(offset + COLOR, RED);
+        codec.encode(value, chunk, offset + VALUE);
+        return node;
+    }
+
+    /**
+     * Maps the next chunk of records, which makes the file grow if it is not long enough.
+     */
+    private void mapChunk() throws IOException {
+        long chunkBytes = (long) recordBytes << chunkShift;
+        long position = HEADER_BYTES + chunks.size() * chunkBytes;
+        chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, position, chunkBytes));
+    }
+
+    /**
+     * @return the mapped chunk holding the record of node
+     */
+    private MappedByteBuffer chunk(int node) {
+        return chunks.get(node >>> chunkShift);
+    }
+
+    /**
+     * @return the position of node's record within its chunk
+     */
+    private int offset(int node) {
+        return (node & ((1 << chunkShift) - 1)) * recordBytes;
+    }
+
+    private int compare(T value, int node) {
+        return codec.compare(value, chunk(node), offset(node) + VALUE);
+    }
+
+    private int left(int node) {
+        return chunk(node).getInt(offset(node) + LEFT);
+    }
+
+    private int right(int node) {
+        return chunk(node).getInt(offset(node) + RIGHT);
+    }
+
+    private int up(int node) {
+        return chunk(node).getInt(offset(node) + UP);
+    }
+
+    private boolean isRed(int node) {
+        return node != NIL && chunk(node).get(offset(node) + COLOR) == RED;
+    }
+
+    private void setLeft(int node, int child) {
+        chunk(node).putInt(offset(node) + LEFT, child);
+    }
+
+    private void setRight(int node, int child) {
+        chunk(node).putInt(offset(node) + RIGHT, child);
+    }
+
+    private void setUp(int node, int parent) {
+        chunk(node).putInt(offset(node) + UP, parent);
+    }
+
+    private void setColor(int node, byte color) {
+        chunk(node).put(offset(node) + COLOR, color);
+    }
+
+    private void setRoot(int node) {
+        root = node;
+        header.putInt(ROOT_OFFSET, node);
+    }
+
+    private void setSize(int newSize) {
+        size = newSize;
+        header.putInt(SIZE_OFFSET, newSize);
+    }
+
+    /**
+     * Checks ordering, parent links, colors and black heights of the whole tree.
+     *
+     * @throws IllegalStateException if one of the invariants does not hold
+     */
+    protected void checkInvariants() {
+        if (isRed(root) || (root != NIL && up(root) != NIL)) {
+            throw new IllegalStateException("root must be black and have no parent");
+        }
+        int[] count = new int[1];
+        checkInvariants(root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("size is " + size + " but tree holds " + count[0]);
+        }
+    }
+
+    /**
+     * Checks the invariants of the subtree rooted at node, whose values must lie strictly between
+     * low and high (either of which may be null for no bound), and counts its nodes.
+     *
+     * @return the number of black nodes on every path from node to NIL
+     */
+    private int checkInvariants(int node, T low, T high, int[] count) {
+        if (node == NIL) {
+            return 0;
+        }
+        count[0]++;
+        T value = codec.decode(chunk(node), offset(node) + VALUE);
+        if ((low != null && value.compareTo(low) <= 0) || (high != null && value.compareTo(high) >= 0)) {
+            throw new IllegalStateException("out of order: " + value);
+        }
+        if ((left(node) != NIL && up(left(node)) != node) || (right(node) != NIL && up(right(node)) != node)) {
+            throw new IllegalStateException("broken parent link below " + value);
+        }
+        if (isRed(node) && (isRed(left(node)) || isRed(right(node)))) {
+            throw new IllegalStateException("red node with red child: " + value);
+        }
+        int leftBlackHeight = checkInvariants(left(node), low, value, count);
+        int rightBlackHeight = checkInvariants(right(node), value, high, count);
+        if (leftBlackHeight != rightBlackHeight) {
+            throw new IllegalStateException("unequal black heights below " + value);
+        }
+        return leftBlackHeight + (isRed(node) ? 0 : 1);
+    }
+}
@@ -0,0 +1,126 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests for MappedRedBlackTree.
+ * */
+public class MappedRedBlackTreeTest {
+
+    /**
+     * Tester that fills a tree across several chunks, reopens the file and checks that every value
+     * is still there without inserting anything again
+     * */
+    @Test
+    public void testReopen() throws IOException {
+        Path file = Files.createTempFile("rbt", ".map");
+        try {
+            java.util.Random random = new java.util.Random(7);
+            java.util.TreeSet<Long> expected = new java.util.TreeSet<>();
+            try (MappedRedBlackTree<Long> test1 = MappedRedBlackTree.open(file, FixedWidthCodec.LONG, 6)) {
+                for (int i = 0; i < 3000; i++) {
+                    long value = random.nextInt(10000);
+                    test1.insert(value);
+                    expected.add(value);
+                }
+                test1.checkInvariants();
+            }
+            try (MappedRedBlackTree<Long> test2 = MappedRedBlackTree.open(file, FixedWidthCodec.LONG)) {
+                assertEquals(expected.size(), test2.size());
+                test2.checkInvariants();
+                for (long value = 0; value < 10000; value++) {
+                    assertEquals(expected.contains(value), test2.contains(value));
+                }
+                // the reopened tree keeps accepting values
+                test2.insert(-5L);
+                assertTrue(test2.contains(-5L));
+                test2.checkInvariants();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tester that checks that a file can't be opened with a codec of another width
+     * */
+    @Test
+    public void testCodecMismatch() throws IOException {
+        Path file = Files.createTempFile("rbt", ".map");
+        try {
+            try (MappedRedBlackTree<Long> test3 = MappedRedBlackTree.open(file, FixedWidthCodec.LONG)) {
+                test3.insert(1L);
+            }
+            assertThrows(IllegalArgumentException.class, () -> {
+                try {
+                    MappedRedBlackTree.open(file, FixedWidthCodec.INTEGER).close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tester that overwrites header fields of a tree file with values outside the file and checks
+     * that open rejects them instead of mapping the file, while an empty tree file reopens fine
+     * */
+    @Test
+    public void testCorruptHeader() throws IOException {
+        Path file = Files.createTempFile("rbt", ".map");
+        try {
+            MappedRedBlackTree.open(file, FixedWidthCodec.LONG).close();
+            try (MappedRedBlackTree<Long> test4 = MappedRedBlackTree.open(file, FixedWidthCodec.LONG, 4)) {
+                assertTrue(test4.isEmpty());
+                for (long i = 0; i < 100; i++) {
+                    test4.insert(i);
+                }
+            }
+            // header offsets of the chunk shift, root, size and number of used records
+            int[][] corruptions = {{12, 40}, {12, -1}, {16, 5000}, {16, -3}, {20, 101},
+                    {24, 1 << 20}, {24, 0}};
+            for (int[] corruption : corruptions) {
+                int original = writeHeaderInt(file, corruption[0], corruption[1]);
+                assertThrows(IllegalArgumentException.class, () -> {
+                    try {
+                        MappedRedBlackTree.open(file, FixedWidthCodec.LONG).close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, "offset " + corruption[0] + " = " + corruption[1]);
+                writeHeaderInt(file, corruption[0], original);
+            }
+            try (MappedRedBlackTree<Long> test5 = MappedRedBlackTree.open(file, FixedWidthCodec.LONG)) {
+                assertEquals(100, test5.size());
+                test5.checkInvariants();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Overwrites the int at position of file with value.
+     *
+     * @return the int that was stored there before
+     */
+    private static int writeHeaderInt(Path file, int position, int value) throws IOException {
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file,
+                java.nio.file.StandardOpenOption.READ, java.nio.file.StandardOpenOption.WRITE)) {
+            java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(4);
+            channel.read(buffer, position);
+            buffer.flip();
+            int original = buffer.getInt();
+            buffer.clear();
+            buffer.putInt(value).flip();
+            channel.write(buffer, position);
+            return original;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * This class represents a node in a PersistentRedBlackTree. Unlike RBTNode it has no reference to
+ * its parent: a node is shared by every version of the tree that contains its subtree, so it
+ * can't point back to any single parent. Nodes are only changed while an insert builds them and
+ * never again once the version holding them has been published.
+ */
+public class PersistentRBTNode<T> {
+
+    // stores the data value for the node
+    protected T data;
+
+    // reference to the node's left child
+    protected PersistentRBTNode<T> left = null;
+    // reference to the node's right child
+    protected PersistentRBTNode<T> right = null;
+
+    // store whether this is a red or black node
+    protected boolean isRed = true;
+    // number of nodes in the subtree rooted at this node, including the node itself
+    protected int size = 1;
+
+    /**
+     * Constructor that creates a new red leaf node with the value data.
+     *
+     * @param data the value the new node stores
+     */
+    public PersistentRBTNode(T data) {
+        this.data = data;
+    }
+
+    /**
+     * Creates a copy of this node that shares its children, for an insert to change instead of
+     * this node.
+     *
+     * @return a new node with the same value, color, children and size
+     */
+    public PersistentRBTNode<T> copy() {
+        PersistentRBTNode<T> copy = new PersistentRBTNode<>(this.data);
+        copy.left = this.left;
+        copy.right = this.right;
+        copy.isRed = this.isRed;
+        copy.size = this.size;
+        return copy;
+    }
+
+    /**
+     * @return value stored in this node
+     */
+    public T getData() {
+        return this.data;
+    }
+
+    /**
+     * @return the left child of this node, or null if this node has no left child
+     */
+    public PersistentRBTNode<T> getLeft() {
+        return this.left;
+    }
+
+    /**
+     * @return the right child of this node, or null if this node has no right child
+     */
+    public PersistentRBTNode<T> getRight() {
+        return this.right;
+    }
+
+    /**
+     * @return true if the node is red, false if it is black
+     */
+    public boolean isRed() {
+        return this.isRed;
+    }
+
+    /**
+     * Returns a string representation for this node.
+     *
+     * @return a string representation of the node's value and color
+     */
+    @Override
+    public String toString() {
+        return this.data.toString() + (this.isRed() ? "(r)" : "(b)");
+    }
+
+}
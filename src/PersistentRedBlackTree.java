@@ -0,0 +1,334 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Red black tree whose versions never change once published. An insert copies the nodes on the
+ * path from the root down to the new node, plus the aunts that a red aunt repair recolors, and
+ * applies the same repair cases as RedBlackTree's ensureRedProperty and case2Helper to those
+ * copies only; every other subtree is shared with the previous version. A new version therefore
+ * costs O(log n) nodes, and snapshot() costs O(1): it just hands out the current root.
+ *
+ * Readers never lock. The root is published through a volatile field, so any thread reading it
+ * sees the complete version behind it, and snapshots and iterators can be shared freely across
+ * threads. Writers of one tree are serialized by the tree's monitor.
+ * */
+public class PersistentRedBlackTree<T extends Comparable<T>> implements SortedCollection<T>,
+        Iterable<T> {
+
+    // red black trees of up to 2^31 values are less than 64 levels high
+    private static final int MAX_HEIGHT = 64;
+
+    // root of the current version; its size is the size of the tree
+    private volatile PersistentRBTNode<T> root;
+    // path from the root to the node an insert adds, reused by every insert under the monitor
+    private PersistentRBTNode<T>[] path;
+
+    /**
+     * Constructor to create a new empty tree
+     */
+    public PersistentRedBlackTree() {
+        this(null);
+    }
+
+    /**
+     * Constructor to create a tree whose first version is the one rooted at root.
+     */
+    private PersistentRedBlackTree(PersistentRBTNode<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the current version as a tree of its own in O(1). Later inserts into this tree
+     * don't change the snapshot, and inserts into the snapshot don't change this tree.
+     *
+     * @return a tree holding exactly the values this tree holds now
+     */
+    public PersistentRedBlackTree<T> snapshot() {
+        return new PersistentRedBlackTree<>(root);
+    }
+
+    /**
+     * Inserts a new data value by publishing a new version that shares every subtree the insert
+     * doesn't touch with the current version.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        if (path == null) {
+            path = new PersistentRBTNode[MAX_HEIGHT];
+        }
+        // walk down the current version, remembering the path
+        PersistentRBTNode<T> current = root;
+        int depth = 0;
+        int comparison = 0;
+        while (current != null) {
+            comparison = data.compareTo(current.data);
+            // equal data is already stored, so the version stays the same
+            if (comparison == 0) {
+                return;
+            }
+            path[depth++] = current;
+            current = comparison < 0 ? current.left : current.right;
+        }
+        // replace every node on the path with a copy that links to the copy below it
+        for (int i = 0; i < depth; i++) {
+            PersistentRBTNode<T> copy = path[i].copy();
+            copy.size++;
+            if (i > 0) {
+                if (path[i - 1].left == path[i]) {
+                    path[i - 1].left = copy;
+                } else {
+                    path[i - 1].right = copy;
+                }
+            }
+            path[i] = copy;
+        }
+        PersistentRBTNode<T> newNode = new PersistentRBTNode<>(data);
+        path[depth] = newNode;
+        if (depth > 0) {
+            if (comparison < 0) {
+                path[depth - 1].left = newNode;
+            } else {
+                path[depth - 1].right = newNode;
+            }
+        }
+        PersistentRBTNode<T> newRoot = ensureRedProperty(depth);
+        newRoot.isRed = false;
+        Arrays.fill(path, 0, depth + 1, null);
+        // publishing the root makes all changes to the copies above visible together
+        root = newRoot;
+    }
+
+    /**
+     * Repairs red property violations caused by the red node at path[index], walking up the
+     * path instead of following parent references. Every node on the path is already a copy, so
+     * it can be recolored and rotated in place.
+     *
+     * @return the root of the new version
+     */
+    private PersistentRBTNode<T> ensureRedProperty(int index) {
+        // the root is black, so a red parent always has a parent itself
+        while (index >= 2 && path[index - 1].isRed) {
+            PersistentRBTNode<T> newRedNode = path[index];
+            PersistentRBTNode<T> parent = path[index - 1];
+            PersistentRBTNode<T> grandParent = path[index - 2];
+            boolean parentIsLeft = grandParent.left == parent;
+            PersistentRBTNode<T> aunt = parentIsLeft ? grandParent.right : grandParent.left;
+            // case 1: red aunt, recolor and continue at the grandparent. The aunt is not on the
+            // path, so it is copied before it is recolored
+            if (aunt != null && aunt.isRed) {
+                aunt = aunt.copy();
+                aunt.isRed = false;
+                if (parentIsLeft) {
+                    grandParent.right = aunt;
+                } else {
+                    grandParent.left = aunt;
+                }
+                parent.isRed = false;
+                grandParent.isRed = true;
+                index -= 2;
+                continue;
+            }
+            // case 3: the new red node is an inner child, rotate it into the outer position
+            if (parentIsLeft && parent.right == newRedNode) {
+                grandParent.left = rotateLeft(parent);
+            } else if (!parentIsLeft && parent.left == newRedNode) {
+                grandParent.right = rotateRight(parent);
+            }
+            // case 2: outer child, rotate the parent above the grandparent and swap their colors
+            PersistentRBTNode<T> top = parentIsLeft ? rotateRight(grandParent)
+                    : rotateLeft(grandParent);
+            top.isRed = false;
+            grandParent.isRed = true;
+            if (index == 2) {
+                return top;
+            }
+            PersistentRBTNode<T> greatGrandParent = path[index - 3];
+            if (greatGrandParent.left == grandParent) {
+                greatGrandParent.left = top;
+            } else {
+                greatGrandParent.right = top;
+            }
+            break;
+        }
+        return path[0];
+    }
+
+    /**
+     * Rotates the right child of node above node. Both must be copies made by the current insert.
+     *
+     * @return the new root of the subtree, which was node's right child
+     */
+    private static <T> PersistentRBTNode<T> rotateLeft(PersistentRBTNode<T> node) {
+        PersistentRBTNode<T> child = node.right;
+        node.right = child.left;
+        child.left = node;
+        child.size = node.size;
+        node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+        return child;
+    }
+
+    /**
+     * Rotates the left child of node above node. Both must be copies made by the current insert.
+     *
+     * @return the new root of the subtree, which was node's left child
+     */
+    private static <T> PersistentRBTNode<T> rotateRight(PersistentRBTNode<T> node) {
+        PersistentRBTNode<T> child = node.left;
+        node.left = child.right;
+        child.right = node;
+        child.size = node.size;
+        node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+        return child;
+    }
+
+    /**
+     * @return the number of nodes in the subtree rooted at node, or 0 if node is null
+     */
+    private static int sizeOf(PersistentRBTNode<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Check whether data is stored in the current version, without locking.
+     *
+     * @param data the value to check for
+     * @return true if the collection contains data, and false otherwise
+     */
+    @Override
+    public boolean contains(Comparable<T> data) {
+        if (data == null) {
+            return false;
+        }
+        PersistentRBTNode<T> current = root;
+        while (current != null) {
+            int comparison = data.compareTo(current.data);
+            if (comparison == 0) {
+                return true;
+            }
+            current = comparison < 0 ? current.left : current.right;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of values in the current version
+     */
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * @return true if the current version holds no values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Publishes an empty version. Snapshots taken before keep their values.
+     */
+    @Override
+    public synchronized void clear() {
+        root = null;
+    }
+
+    /**
+     * Returns an iterator over the values of the current version in ascending order. The
+     * version can't change, so the iterator never fails, and it keeps returning the values of
+     * that version while the tree moves on.
+     *
+     * @return an iterator over the values of this tree
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<T> iterator() {
+        PersistentRBTNode<T> start = root;
+        return new Iterator<T>() {
+            // nodes whose value and right subtree are still to be visited, innermost on top
+            private final PersistentRBTNode<T>[] stack = new PersistentRBTNode[MAX_HEIGHT];
+            private int top = pushLeft(start, 0);
+
+            /**
+             * Pushes node and its chain of left children onto the stack.
+             *
+             * @return the new height of the stack
+             */
+            private int pushLeft(PersistentRBTNode<T> node, int height) {
+                while (node != null) {
+                    stack[height++] = node;
+                    node = node.left;
+                }
+                return height;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public T next() {
+                if (top == 0) {
+                    throw new NoSuchElementException();
+                }
+                PersistentRBTNode<T> node = stack[--top];
+                top = pushLeft(node.right, top);
+                return node.data;
+            }
+        };
+    }
+
+    /**
+     * Checks the red-black tree invariants of the current version: ordered keys, correct subtree
+     * sizes, a black root, no red node with a red child and the same number of black nodes on
+     * every path from the root to a null child.
+     *
+     * @throws IllegalStateException if one of the invariants does not hold
+     */
+    protected void checkInvariants() {
+        PersistentRBTNode<T> version = root;
+        if (version != null && version.isRed) {
+            throw new IllegalStateException("root must be black");
+        }
+        checkInvariants(version, null, null);
+    }
+
+    /**
+     * Checks the invariants of the subtree rooted at node, whose values must lie strictly between
+     * low and high (either of which may be null for no bound).
+     *
+     * @return the number of black nodes on every path from node to a null child
+     */
+    private int checkInvariants(PersistentRBTNode<T> node, T low, T high) {
+        if (node == null) {
+            return 0;
+        }
+        if ((low != null && node.data.compareTo(low) <= 0)
+                || (high != null && node.data.compareTo(high) >= 0)) {
+            throw new IllegalStateException("out of order: " + node);
+        }
+        if (node.isRed && ((node.left != null && node.left.isRed)
+                || (node.right != null && node.right.isRed))) {
+            throw new IllegalStateException("red node with red child: " + node);
+        }
+        if (node.size != 1 + sizeOf(node.left) + sizeOf(node.right)) {
+            throw new IllegalStateException("wrong subtree size at " + node);
+        }
+        int leftBlackHeight = checkInvariants(node.left, low, node.data);
+        int rightBlackHeight = checkInvariants(node.right, node.data, high);
+        if (leftBlackHeight != rightBlackHeight) {
+            throw new IllegalStateException("unequal black heights below " + node);
+        }
+        return leftBlackHeight + (node.isRed ? 0 : 1);
+    }
+}
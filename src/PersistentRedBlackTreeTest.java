@@ -0,0 +1,92 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PersistentRedBlackTree.
+ * */
+public class PersistentRedBlackTreeTest {
+
+    /**
+     * Tester that keeps a snapshot after every batch of random inserts and checks that each one
+     * still holds exactly the values that were stored when it was taken
+     * */
+    @Test
+    public void testSnapshotsAreIsolated() {
+        PersistentRedBlackTree<Integer> test1 = new PersistentRedBlackTree<>();
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        java.util.List<PersistentRedBlackTree<Integer>> snapshots = new java.util.ArrayList<>();
+        java.util.List<java.util.List<Integer>> contents = new java.util.ArrayList<>();
+        java.util.Random random = new java.util.Random(17);
+        for (int batch = 0; batch < 50; batch++) {
+            for (int i = 0; i < 100; i++) {
+                int value = random.nextInt(10000);
+                test1.insert(value);
+                expected.add(value);
+            }
+            test1.checkInvariants();
+            snapshots.add(test1.snapshot());
+            contents.add(new java.util.ArrayList<>(expected));
+        }
+        // inserting into a snapshot forks it without changing the tree it came from
+        PersistentRedBlackTree<Integer> fork = snapshots.get(0).snapshot();
+        fork.insert(-1);
+        for (int i = 0; i < snapshots.size(); i++) {
+            java.util.List<Integer> actual = new java.util.ArrayList<>();
+            snapshots.get(i).forEach(actual::add);
+            assertEquals(contents.get(i), actual);
+            assertEquals(contents.get(i).size(), snapshots.get(i).size());
+            snapshots.get(i).checkInvariants();
+        }
+        assertTrue(fork.contains(-1));
+        assertFalse(snapshots.get(0).contains(-1));
+        assertFalse(test1.contains(-1));
+    }
+
+    /**
+     * Tester that takes snapshots in reader threads while a writer keeps inserting, and checks
+     * that every snapshot is a complete, valid version
+     * */
+    @Test
+    public void testConcurrentSnapshots() throws InterruptedException {
+        PersistentRedBlackTree<Integer> test2 = new PersistentRedBlackTree<>();
+        java.util.concurrent.atomic.AtomicBoolean failed = new java.util.concurrent.atomic.AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                test2.insert(i);
+            }
+        });
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    PersistentRedBlackTree<Integer> snapshot = test2.snapshot();
+                    try {
+                        snapshot.checkInvariants();
+                    } catch (IllegalStateException e) {
+                        failed.set(true);
+                    }
+                    // values are inserted in ascending order, so a version holds 0 .. size - 1
+                    int expected = 0;
+                    for (int value : snapshot) {
+                        if (value != expected++) {
+                            failed.set(true);
+                        }
+                    }
+                    if (expected != snapshot.size()) {
+                        failed.set(true);
+                    }
+                }
+            });
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(20000, test2.size());
+    }
+}
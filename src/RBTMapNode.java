@@ -0,0 +1,49 @@
+/**
+ * This class represents a node in a RedBlackTreeMap. It inherits the key and the links from
+ * RBTNode and adds the value mapped to the key, so a lookup reaches both in one descent.
+ */
+public class RBTMapNode<K, V> extends RBTNode<K> {
+
+    // stores the value mapped to the key in data
+    protected V value;
+
+    /**
+     * Constructor that creates a new red node mapping key to value.
+     * Both parent and child references of the new node are initialized to null.
+     *
+     * @param key   the key the new node stores
+     * @param value the value mapped to key
+     */
+    public RBTMapNode(K key, V value) {
+        super(key);
+        this.value = value;
+    }
+
+    /**
+     * @return the value mapped to the key of this node
+     */
+    public V getValue() {
+        return this.value;
+    }
+
+    /**
+     * Copies the value along with the key, so that removal keeps every key mapped to its own
+     * value when this node takes over the key of its successor.
+     */
+    @Override
+    protected void copyDataFrom(BSTNode<K> other) {
+        super.copyDataFrom(other);
+        this.value = ((RBTMapNode<K, V>) other).value;
+    }
+
+    /**
+     * Returns a string representation for this node.
+     *
+     * @return a string representation of the node's key, value and color
+     */
+    @Override
+    public String toString() {
+        return this.data + "=" + this.value + (this.isRed() ? "(r)" : "(b)");
+    }
+
+}
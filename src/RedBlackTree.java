@@ -1,91 +1,157 @@
-import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.Assertions;
-import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.function.ToLongFunction;
 /**
  * Class that builds a tree that follows the rules of a red black tree.
  * */
 public class RedBlackTree<T extends Comparable<T>>  extends BSTRotation<T> {
     //protected BSTNode<T> root;
 
+    // insertAll rebuilds the tree when a batch holds at least 1/REBUILD_RATIO as many values as
+    // the tree
+    private static final int REBUILD_RATIO = 8;
+
+    // identifies streams written by writeTo ("RBS1")
+    private static final int STREAM_MAGIC = 0x52425331;
+    private static final int STREAM_VERSION = 1;
+    // magic, version, codec width, flags, number of records and size
+    private static final int STREAM_HEADER_BYTES = 24;
+    // flag set when every record is followed by the number of copies of its value
+    private static final int STREAM_COUNTS = 1;
+    // size of the buffer records are encoded into and decoded from
+    private static final int STREAM_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * Constructor to create a new empty tree that stores every value once.
+     */
+    public RedBlackTree() {
+        super();
+    }
+
+    /**
+     * Constructor to create a new empty tree. A multiset tree counts equal values in the node
+     * that holds them, so inserting a duplicate is a single O(log n) search that allocates
+     * nothing and never rebalances.
+     *
+     * @param multiset true to count equal values instead of storing them once
+     */
+    public RedBlackTree(boolean multiset) {
+        super(multiset);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values with comparator instead of
+     * their natural ordering.
+     *
+     * @param comparator the ordering of the values
+     * @throws NullPointerException if comparator is null
+     */
+    public RedBlackTree(Comparator<? super T> comparator) {
+        super(false, comparator);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values by the long key extracted
+     * from each of them, comparing primitive keys while searching.
+     *
+     * @param key extracts the key of a value
+     * @throws NullPointerException if key is null
+     */
+    public RedBlackTree(ToLongFunction<? super T> key) {
+        super(false, key);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values with comparator.
+     *
+     * @param multiset   true to count equal values instead of storing them once
+     * @param comparator the ordering of the values
+     * @throws NullPointerException if comparator is null
+     */
+    public RedBlackTree(boolean multiset, Comparator<? super T> comparator) {
+        super(multiset, comparator);
+    }
+
+    /**
+     * Constructor to create a new empty tree that orders its values by the long key extracted
+     * from each of them.
+     *
+     * @param multiset true to count values with equal keys instead of storing one of them
+     * @param key      extracts the key of a value
+     * @throws NullPointerException if key is null
+     */
+    public RedBlackTree(boolean multiset, ToLongFunction<? super T> key) {
+        super(multiset, key);
+    }
+
     /**
      * Checks if a new red node in the RedBlackTree causes a red property violation
      * by having a red parent. If this is not the case, the method terminates without
      * making any changes to the tree. If a red property violation is detected, then
      * the method repairs this violation and any additional red property violations
-     * that are generated as a result of the applied repair operation.
+     * that are generated as a result of the applied repair operation. Each case 1 recolor
+     * moves the violation two levels up, so the repair loops up the tree instead of calling
+     * itself, and its stack use doesn't depend on the height of the tree.
      * @param newRedNode a newly inserted red node, or a node turned red by previous repair
      */
     protected void ensureRedProperty(RBTNode<T> newRedNode) {
-        // saves parent node to variable
-        RBTNode<T> parent = newRedNode.getUp();
-
-        // if parent is null then there can be no violation
-        if (parent==null){
-            return;
-        }
-        // saves grandparent node to variable
-        RBTNode<T> grandParent = newRedNode.getUp().getUp();
-        // creates aunt variable
-        RBTNode<T> aunt = null;
+        while (true) {
+            // saves parent node to variable
+            RBTNode<T> parent = newRedNode.getUp();
 
-        // no issue can occur if parent is not red
-        if (!parent.isRed){
-            return;
-        }
+            // if parent is null then there can be no violation, and no issue can occur if parent
+            // is not red
+            if (parent == null || !parent.isRed) {
+                return;
+            }
+            // saves grandparent node to variable
+            RBTNode<T> grandParent = parent.getUp();
 
-        // if the new node is the second node being added then there's no grandparent so you just
-        // flip colors
-        if (grandParent == null) {
-            parent.flipColor();
-            this.root = parent;
-            ensureRedProperty(parent);
-        }
-        // if aunt is on left side
-        if (grandParent.getLeft()!=null && grandParent.getLeft()!=parent){
-            aunt = grandParent.getLeft();
-            // case 1 where aunt is red
-            if (aunt.isRed) {
-                aunt = grandParent.getLeft();
+            // if the new node is the second node being added then there's no grandparent so you
+            // just flip colors of the red root
+            if (grandParent == null) {
                 parent.flipColor();
-                aunt.flipColor();
-                grandParent.flipColor();
-                ensureRedProperty(grandParent);
-
-            }// case 3 where aunt is black
-            else if (!grandParent.getLeft().isRed) {
-                rotate(newRedNode, parent);
-                rotate(newRedNode, grandParent);
-                grandParent.flipColor();
-                newRedNode.flipColor();
-                ensureRedProperty(grandParent);
-
-            }
-        }
-        // if aunt is on right side
-        else if (grandParent.getRight()!=null && grandParent.getRight()!=parent){
-            aunt = grandParent.getRight();
-            // case 1 where aunt is red
-            if (grandParent.getRight().isRed) {
-                aunt = grandParent.getRight();
-                parent.flipColor();
-                aunt.flipColor();
-                grandParent.flipColor();
-                ensureRedProperty(grandParent);
-            }// case 3 where aunt is black
-            else if (!grandParent.getRight().isRed) {
-                rotate(newRedNode, parent);
-                rotate(newRedNode, grandParent);
-                grandParent.flipColor();
-                newRedNode.flipColor();
-                ensureRedProperty(grandParent);
+                this.root = parent;
+                return;
+            }
+            // the aunt is the grandparent's other child, and may be null
+            RBTNode<T> aunt = grandParent.getLeft() == parent
+                    ? grandParent.getRight() : grandParent.getLeft();
+            // case 2 and 3 where aunt is black are handled the same way as a null aunt, and end
+            // the repair
+            if (aunt == null || !aunt.isRed) {
+                case2Helper(newRedNode, parent, grandParent);
+                return;
             }
-        } // if aunt is null
-        else if (grandParent.getRight()==null || grandParent.getLeft()==null){
-            case2Helper(newRedNode,parent,grandParent);
+            // case 1 where aunt is red: recolor, then check the grandparent that turned red
+            parent.flipColor();
+            aunt.flipColor();
+            grandParent.flipColor();
+            if (metrics != null) {
+                metrics.recolored();
+            }
+            newRedNode = grandParent;
         }
     }
 
     private void case2Helper(RBTNode<T> newRedNode, RBTNode<T> parent, RBTNode<T> grandParent) {
+        if (metrics != null) {
+            metrics.restructured();
+        }
         // right-right situation
         if (parent.getRight()==newRedNode && grandParent.getRight() != null && grandParent.getRight()==parent){
             rotate(parent,grandParent);
@@ -118,10 +184,10 @@ public class RedBlackTree<T extends Comparable<T>>  extends BSTRotation<T> {
 
     /**
      * 1. overrides the insert method inherited from BinarySearchTree.
-     * 2. uses BinarySearchTree’s insertHelper method to insert a node
-     * with a the new value into the tree.
+     * 2. uses BinarySearchTree’s iterative insertHelper method to insert a node
+     * with a the new value into the tree, or to count a duplicate in multiset mode.
      * 3. ensures that any node inserted into the tree is a red node of
-     * type RBTNode.
+     * type RBTNode, through createNode.
      * 4. ensures that ensureRedProperty is called for every newly
      * inserted red node (with the exception of the root node) to
      * identify and repair a potential red property violation.
@@ -134,109 +200,795 @@ public class RedBlackTree<T extends Comparable<T>>  extends BSTRotation<T> {
         if (data == null) {
             throw new NullPointerException();
         }
-        // Creates new node with data given
-        RBTNode<T> newNode = new RBTNode<T>((T) data);
-        // if tree is empty then newNode becomes the root
+        if (metrics != null) {
+            insertMeasured((T) data);
+            return;
+        }
+        // if tree is empty then a new node with data becomes the root
         if (root == null) {
-            root = newNode;
-        } // if tree isn't empty then we recursively search through the tree and insert node in correct
+            root = createNode((T) data);
+            size++;
+            modCount++;
+        } // if tree isn't empty then we search down through the tree and insert data in correct
         // spot
         else {
-            insertHelper(newNode, (RBTNode<T>) root);
+            RBTNode<T> newNode = (RBTNode<T>) insertHelper((T) data, root);
+            // no new node means a duplicate was counted or dropped, which needs no repair
+            if (newNode == null) {
+                return;
+            }
             ensureRedProperty(newNode);
         }
         ((RBTNode<T>)this.root).isRed = false;
 
     }
 
+    /**
+     * Inserts data like insert does and reports it to metrics, with the depth insertDepth finds.
+     * The comparisons reported are not counted but derived from the depth: insertHelper compares
+     * data once with each ancestor of a new node, and once more with the node of a stored value.
+     */
+    private void insertMeasured(T data) {
+        metrics.insertStarted();
+        int depth = 0;
+        int comparisons = 0;
+        if (root == null) {
+            root = createNode(data);
+            size++;
+            modCount++;
+        } else {
+            RBTNode<T> newNode = (RBTNode<T>) insertHelper(data, root);
+            depth = insertDepth(data, newNode);
+            comparisons = newNode != null ? depth : depth + 1;
+            if (newNode != null) {
+                ensureRedProperty(newNode);
+            }
+        }
+        ((RBTNode<T>) this.root).isRed = false;
+        metrics.insertEnded(depth, comparisons);
+    }
+
+    /**
+     * Creates the red nodes this tree is made of.
+     */
+    @Override
+    protected BSTNode<T> createNode(T data) {
+        return new RBTNode<T>(data);
+    }
+
+    /**
+     * Builds a tree holding the given values in O(n) when they are already sorted, by linking
+     * the nodes into a balanced shape and coloring them directly instead of inserting them one by
+     * one. Unsorted input is sorted first, which costs O(n log n). Duplicate values are stored
+     * once, as with insert.
+     *
+     * @param values the values to store; the array is not modified
+     * @return a new tree holding the values
+     * @throws NullPointerException if values or one of its elements is null
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> fromSorted(T[] values)
+            throws NullPointerException {
+        RedBlackTree<T> tree = new RedBlackTree<>();
+        Object[] copy = Arrays.copyOf(values, values.length, Object[].class);
+        tree.build(copy, null, tree.sortedDistinct(copy, null));
+        return tree;
+    }
+
+    /**
+     * Builds a tree holding the values returned by iterator, in O(n) when they come in sorted
+     * order. See fromSorted(T[]).
+     *
+     * @param values iterator over the values to store
+     * @return a new tree holding the values
+     * @throws NullPointerException if values or one of the values it returns is null
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> fromSorted(Iterator<? extends T> values)
+            throws NullPointerException {
+        ArrayList<T> list = new ArrayList<>();
+        while (values.hasNext()) {
+            list.add(values.next());
+        }
+        RedBlackTree<T> tree = new RedBlackTree<>();
+        Object[] array = list.toArray();
+        tree.build(array, null, tree.sortedDistinct(array, null));
+        return tree;
+    }
+
+    /**
+     * Inserts all values of a collection as one batch. See insertAll.
+     *
+     * @param values the values to insert
+     * @throws NullPointerException if values or one of its elements is null
+     */
+    public void addAll(Collection<? extends T> values) throws NullPointerException {
+        insertBatch(values.toArray());
+    }
+
+    /**
+     * Inserts a batch of values. The batch is sorted first (unless it already is), which lets
+     * the values be added in ascending order:
+     * - a batch that is small compared to the tree is inserted value by value, but every
+     * search starts from the node the previous value was inserted at instead of the root. It
+     * climbs only as far up as the next value requires, so values that land close together
+     * cost close to O(1) each instead of a full descent.
+     * - a batch that is large compared to the tree (or any batch for an empty tree) is merged
+     * with the values of the tree in one O(n + m) pass, and the tree is rebuilt from the merged
+     * values like fromSorted does.
+     *
+     * @param values the values to insert; the array is not modified
+     * @throws NullPointerException if values or one of its elements is null
+     */
+    public void insertAll(T[] values) throws NullPointerException {
+        insertBatch(Arrays.copyOf(values, values.length, Object[].class));
+    }
+
+    /**
+     * Inserts the values of batch, which this method may reorder.
+     */
+    @SuppressWarnings("unchecked")
+    private void insertBatch(Object[] batch) {
+        int[] copies = new int[batch.length];
+        int count = sortedDistinct(batch, copies);
+        if (count == 0) {
+            return;
+        }
+        // merging visits all n values of the tree, inserting costs about log(n) per batch value
+        if ((long) count * REBUILD_RATIO >= size) {
+            rebuildWith(batch, copies, count);
+            return;
+        }
+        BSTNode<T> finger = root;
+        for (int i = 0; i < count; i++) {
+            T value = (T) batch[i];
+            for (int copy = multiset ? copies[i] : 1; copy > 0; copy--) {
+                RBTNode<T> newNode = (RBTNode<T>) insertHelper(value, climb(finger, value));
+                // a duplicate needs no repair, and the finger stays where it was
+                if (newNode != null) {
+                    ensureRedProperty(newNode);
+                    ((RBTNode<T>) root).isRed = false;
+                    finger = newNode;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the tree by one holding its values merged with the first count values of batch,
+     * which must be sorted and distinct and occur copies[i] times each.
+     */
+    @SuppressWarnings("unchecked")
+    private void rebuildWith(Object[] batch, int[] copies, int count) {
+        Object[] values = new Object[size + count];
+        int[] merged = new int[size + count];
+        int length = 0;
+        BSTNode<T> node = leftMost(root);
+        int i = 0;
+        while (node != null || i < count) {
+            int comparison = node == null ? 1
+                    : i == count ? -1 : compare(node.getData(), (T) batch[i]);
+            if (comparison <= 0) {
+                values[length] = node.getData();
+                merged[length] = node.count;
+                node = successor(node);
+            } else {
+                values[length] = batch[i];
+                merged[length] = 0;
+            }
+            // a batch value equal to a stored value adds its copies to that value
+            if (comparison >= 0) {
+                merged[length] += copies[i++];
+            }
+            length++;
+        }
+        build(values, multiset ? merged : null, length);
+    }
+
+    /**
+     * Sorts values in the ordering of this tree unless they are already in that order, and moves
+     * the distinct values to
+     * the front of the array. Checking the order is a single O(n) pass, so sorted input never
+     * pays for sorting.
+     *
+     * @param copies when not null, receives how often each distinct value occurred, at the same
+     *               index as the value
+     * @return the number of distinct values, which are now in values[0..count)
+     * @throws NullPointerException if one of the values is null
+     */
+    @SuppressWarnings("unchecked")
+    private int sortedDistinct(Object[] values, int[] copies) {
+        boolean sorted = true;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new NullPointerException();
+            }
+            if (sorted && i > 0 && compare((T) values[i - 1], (T) values[i]) > 0) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            // a null comparator sorts in natural order
+            Arrays.sort(values, (Comparator<Object>) comparator);
+        }
+        // keep the first of every run of equal values
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (count == 0 || compare((T) values[count - 1], (T) values[i]) != 0) {
+                values[count++] = values[i];
+                if (copies != null) {
+                    copies[count - 1] = 0;
+                }
+            }
+            if (copies != null) {
+                copies[count - 1]++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replaces the contents of this tree with the first count values, which must be sorted and
+     * distinct, storing copies[i] copies of values[i] when copies is not null.
+     */
+    private void build(Object[] values, int[] copies, int count) {
+        // every level above the deepest one is complete, so coloring all nodes black except
+        // those on an incomplete deepest level satisfies both the red and the black property
+        int redLevel = 0;
+        for (int m = count - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+        root = build(values, copies, 0, count - 1, 0, redLevel);
+        size = subtreeSize(root);
+        modCount++;
+    }
+
+    /**
+     * Links values[low..high] into a balanced subtree whose root sits at the given level.
+     *
+     * @return the root of the subtree, or null if the range is empty
+     */
+    @SuppressWarnings("unchecked")
+    private RBTNode<T> build(Object[] values, int[] copies, int low, int high, int level,
+                             int redLevel) {
+        if (low > high) {
+            return null;
+        }
+        int middle = (low + high) >>> 1;
+        RBTNode<T> node = (RBTNode<T>) createNode((T) values[middle]);
+        node.isRed = level == redLevel;
+        if (copies != null) {
+            node.count = copies[middle];
+        }
+        RBTNode<T> left = build(values, copies, low, middle - 1, level + 1, redLevel);
+        RBTNode<T> right = build(values, copies, middle + 1, high, level + 1, redLevel);
+        node.subtreeSize = node.count + subtreeSize(left) + subtreeSize(right);
+        node.setLeft(left);
+        node.setRight(right);
+        if (left != null) {
+            left.setUp(node);
+        }
+        if (right != null) {
+            right.setUp(node);
+        }
+        return node;
+    }
+
+    /**
+     * Writes the values of this tree to file in ascending order, replacing anything the file
+     * held. See writeTo(WritableByteChannel, FixedWidthCodec) for the format.
+     *
+     * @param file  the file to write
+     * @param codec converts values to their stored bytes
+     * @throws IOException if the file can't be written
+     */
+    public void writeTo(Path file, FixedWidthCodec<T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(channel, codec);
+        }
+    }
+
+    /**
+     * Writes the values of this tree to channel in ascending order. After a header of six ints
+     * (magic, version, codec width, flags, number of records and size) follows one record per
+     * node: the value encoded by codec, followed by an int holding its number of copies in a
+     * multiset tree. Records are encoded into a direct buffer that is handed to the channel
+     * whenever it is full, so the channel can write it without copying it first. The stream does
+     * not record the ordering of the tree, so a tree created with a comparator or key has to be
+     * read back with the readFrom overload that takes its comparator.
+     *
+     * @param channel the channel to write to; it is not closed
+     * @param codec   converts values to their stored bytes
+     * @throws IOException if writing to channel fails
+     */
+    public void writeTo(WritableByteChannel channel, FixedWidthCodec<T> codec) throws IOException {
+        int records = 0;
+        for (BSTNode<T> node = leftMost(root); node != null; node = successor(node)) {
+            records++;
+        }
+        int recordBytes = codec.width() + (multiset ? Integer.BYTES : 0);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(
+                Math.max(STREAM_HEADER_BYTES, STREAM_BUFFER_BYTES / recordBytes * recordBytes));
+        buffer.putInt(STREAM_MAGIC).putInt(STREAM_VERSION).putInt(codec.width())
+                .putInt(multiset ? STREAM_COUNTS : 0).putInt(records).putInt(size);
+        for (BSTNode<T> node = leftMost(root); node != null; node = successor(node)) {
+            if (buffer.remaining() < recordBytes) {
+                drain(buffer, channel);
+            }
+            codec.encode(node.getData(), buffer, buffer.position());
+            buffer.position(buffer.position() + codec.width());
+            if (multiset) {
+                buffer.putInt(node.count);
+            }
+        }
+        drain(buffer, channel);
+    }
+
+    /**
+     * Writes everything buffer holds to channel and clears it.
+     */
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads a tree that writeTo wrote to file.
+     *
+     * @param file  the file to read
+     * @param codec converts stored bytes back to values, with the width used for writing
+     * @return a new tree holding the values stored in file
+     * @throws IOException              if the file can't be read, ends too early or holds values
+     *                                  out of order
+     * @throws IllegalArgumentException if the file was not written by writeTo, was written with a
+     *                                  codec of a different width, or its header holds a negative
+     *                                  count or more records than the file has room for
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> readFrom(Path file,
+                                                                     FixedWidthCodec<T> codec)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, codec, null);
+        }
+    }
+
+    /**
+     * Reads a tree that writeTo wrote to file from a tree ordered by comparator.
+     *
+     * @param file       the file to read
+     * @param codec      converts stored bytes back to values, with the width used for writing
+     * @param comparator the ordering of the tree that was written, which the new tree keeps
+     * @return a new tree holding the values stored in file
+     * @throws IOException              if the file can't be read, ends too early or holds values
+     *                                  out of order
+     * @throws IllegalArgumentException if the file was not written by writeTo, was written with a
+     *                                  codec of a different width, or its header holds a negative
+     *                                  count or more records than the file has room for
+     * @throws NullPointerException     if comparator is null
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> readFrom(Path file,
+                                                                     FixedWidthCodec<T> codec,
+                                                                     Comparator<? super T> comparator)
+            throws IOException {
+        java.util.Objects.requireNonNull(comparator);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, codec, comparator);
+        }
+    }
+
+    /**
+     * Reads a tree that writeTo wrote to channel. The records are already sorted, so the tree is
+     * linked in O(n) the way fromSorted does it, without searching or rebalancing per value. The
+     * new tree keeps its values in their natural ordering, which the records must follow.
+     *
+     * @param channel the channel to read from; it is not closed
+     * @param codec   converts stored bytes back to values, with the width used for writing
+     * @return a new tree holding the values read from channel
+     * @throws IOException              if reading fails, the stream ends too early or it holds
+     *                                  values out of order
+     * @throws IllegalArgumentException if the stream was not written by writeTo, was written with
+     *                                  a codec of a different width, or its header holds a
+     *                                  negative count or more records than a seekable channel has
+     *                                  bytes left for
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> readFrom(ReadableByteChannel channel,
+                                                                     FixedWidthCodec<T> codec)
+            throws IOException {
+        return read(channel, codec, null);
+    }
+
+    /**
+     * Reads a tree that writeTo wrote to channel from a tree ordered by comparator. The records
+     * must follow that ordering, and the new tree keeps it.
+     *
+     * @param channel    the channel to read from; it is not closed
+     * @param codec      converts stored bytes back to values, with the width used for writing
+     * @param comparator the ordering of the tree that was written
+     * @return a new tree holding the values read from channel
+     * @throws IOException              if reading fails, the stream ends too early or it holds
+     *                                  values out of order
+     * @throws IllegalArgumentException if the stream was not written by writeTo, was written with
+     *                                  a codec of a different width, or its header holds a
+     *                                  negative count or more records than a seekable channel has
+     *                                  bytes left for
+     * @throws NullPointerException     if comparator is null
+     */
+    public static <T extends Comparable<T>> RedBlackTree<T> readFrom(ReadableByteChannel channel,
+                                                                     FixedWidthCodec<T> codec,
+                                                                     Comparator<? super T> comparator)
+            throws IOException {
+        return read(channel, codec, java.util.Objects.requireNonNull(comparator));
+    }
+
+    /**
+     * Reads a tree that writeTo wrote to channel into a new tree ordered by comparator, or in
+     * natural order when comparator is null.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<T>> RedBlackTree<T> read(ReadableByteChannel channel,
+                                                                  FixedWidthCodec<T> codec,
+                                                                  Comparator<? super T> comparator)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(STREAM_BUFFER_BYTES);
+        buffer.limit(STREAM_HEADER_BYTES);
+        fill(buffer, channel);
+        buffer.flip();
+        if (buffer.getInt() != STREAM_MAGIC || buffer.getInt() != STREAM_VERSION) {
+            throw new IllegalArgumentException("not a tree stream of version " + STREAM_VERSION);
+        }
+        if (buffer.getInt() != codec.width()) {
+            throw new IllegalArgumentException("stream was written with a codec of another width");
+        }
+        boolean counts = (buffer.getInt() & STREAM_COUNTS) != 0;
+        int records = buffer.getInt();
+        int size = buffer.getInt();
+        int recordBytes = codec.width() + (counts ? Integer.BYTES : 0);
+        // the counts come straight from the stream, so check them before allocating for them
+        if (records < 0 || size < 0) {
+            throw new IllegalArgumentException("stream header holds " + records + " records and "
+                    + size + " values");
+        }
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel seekable = (SeekableByteChannel) channel;
+            long available = seekable.size() - seekable.position();
+            if ((long) records * recordBytes > available) {
+                throw new IllegalArgumentException("stream header holds " + records
+                        + " records but only " + available + " bytes follow");
+            }
+        }
+        RedBlackTree<T> tree = comparator == null
+                ? new RedBlackTree<T>(counts) : new RedBlackTree<T>(counts, comparator);
+        Object[] values = new Object[records];
+        int[] copies = counts ? new int[records] : null;
+        long total = 0;
+        // start empty so that the first record triggers a read
+        buffer.clear().limit(0);
+        for (int i = 0; i < records; i++) {
+            if (buffer.position() == buffer.limit()) {
+                // read as many whole records as fit into the buffer
+                buffer.clear();
+                buffer.limit(Math.min(records - i, buffer.capacity() / recordBytes) * recordBytes);
+                fill(buffer, channel);
+                buffer.flip();
+            }
+            T value = codec.decode(buffer, buffer.position());
+            buffer.position(buffer.position() + codec.width());
+            if (i > 0 && tree.compare((T) values[i - 1], value) >= 0) {
+                throw new StreamCorruptedException("values out of order at record " + i);
+            }
+            values[i] = value;
+            if (counts) {
+                copies[i] = buffer.getInt();
+                total += copies[i];
+            } else {
+                total++;
+            }
+        }
+        if (total != size) {
+            throw new StreamCorruptedException("records hold " + total + " values, not " + size);
+        }
+        tree.build(values, copies, records);
+        return tree;
+    }
+
+    /**
+     * Reads from channel until buffer has no space left.
+     *
+     * @throws EOFException if channel ends before buffer is full
+     */
+    private static void fill(ByteBuffer buffer, ReadableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("tree stream ends early");
+            }
+        }
+    }
+
+    /**
+     * Removes one occurrence of data from the tree and repairs any black property violation that
+     * the removal causes. Runs in O(log n).
+     *
+     * @param data the value to remove
+     * @return true if data was stored in the tree and has been removed, false otherwise
+     */
+    public boolean remove(Comparable data) {
+        // null is never stored, so there's nothing to remove
+        if (data == null) {
+            return false;
+        }
+        // find the node holding data, comparing once per level
+        BSTNode<T> current = root;
+        while (current != null) {
+            int comparison = compare((T) data, current.getData());
+            if (comparison == 0) {
+                removeOne((RBTNode<T>) current);
+                return true;
+            }
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        return false;
+    }
+
+    /**
+     * Removes one copy of the value stored in node: a node counting several copies only loses
+     * one of them, and any other node is unlinked.
+     *
+     * @param node the node holding the value to remove
+     */
+    private void removeOne(RBTNode<T> node) {
+        if (node.count == 1) {
+            removeNode(node);
+            return;
+        }
+        node.count--;
+        for (BSTNode<T> ancestor = node; ancestor != null; ancestor = ancestor.getUp()) {
+            ancestor.subtreeSize--;
+        }
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Removes and returns the smallest value in the tree.
+     *
+     * @return the smallest value, or null if the tree is empty
+     */
+    public T pollFirst() {
+        if (root == null) {
+            return null;
+        }
+        // the smallest value is stored in the left-most node
+        RBTNode<T> first = (RBTNode<T>) root;
+        while (first.getLeft() != null) {
+            first = first.getLeft();
+        }
+        T data = first.getData();
+        removeOne(first);
+        return data;
+    }
+
+    /**
+     * Removes and returns the largest value in the tree.
+     *
+     * @return the largest value, or null if the tree is empty
+     */
+    public T pollLast() {
+        if (root == null) {
+            return null;
+        }
+        // the largest value is stored in the right-most node
+        RBTNode<T> last = (RBTNode<T>) root;
+        while (last.getRight() != null) {
+            last = last.getRight();
+        }
+        T data = last.getData();
+        removeOne(last);
+        return data;
+    }
 
     /**
-     * Performs the naive binary search tree insert algorithm to recursively insert the provided
-     * newNode (which has already been initialized with a data value) into the provided tree/subtree.
-     * When the provided subtree is null, this method does nothing.
+     * Unlinks the value stored in node from the tree, with all of its copies. A node with two
+     * children takes over the value of its in-order successor, and the successor (which has at
+     * most one child) is unlinked instead. When a black node is unlinked and can't be replaced by a red child,
+     * ensureBlackProperty repairs the missing black node on that path.
+     *
+     * @param node the node holding the value to remove
      */
-    protected void insertHelper(RBTNode<T> newNode, RBTNode<T> subtree) {
-        // method does nothing if subtree is null
-        if (subtree == null) {
-            //System.out.println("Wrong");
+    protected void removeNode(RBTNode<T> node) {
+        // the copies of node's value leave every subtree that contains node
+        for (BSTNode<T> ancestor = node; ancestor != null; ancestor = ancestor.getUp()) {
+            ancestor.subtreeSize -= node.count;
+        }
+        size -= node.count;
+        // with two children, move the successor's value up and remove the successor instead
+        if (node.getLeft() != null && node.getRight() != null) {
+            RBTNode<T> successor = node.getRight();
+            while (successor.getLeft() != null) {
+                successor = successor.getLeft();
+            }
+            // the successor's copies leave the subtrees between node and the successor
+            for (BSTNode<T> ancestor = successor.getUp(); ancestor != node;
+                 ancestor = ancestor.getUp()) {
+                ancestor.subtreeSize -= successor.count;
+            }
+            node.copyDataFrom(successor);
+            node = successor;
+        }
+        // node now has at most one child, which takes node's place
+        RBTNode<T> child = node.getLeft() != null ? node.getLeft() : node.getRight();
+        RBTNode<T> parent = node.getUp();
+        if (child != null) {
+            child.setUp(parent);
+        }
+        if (parent == null) {
+            root = child;
+        } else if (parent.getLeft() == node) {
+            parent.setLeft(child);
+        } else {
+            parent.setRight(child);
+        }
+        node.setUp(null);
+        node.setLeft(null);
+        node.setRight(null);
+        modCount++;
+
+        // removing a red node never changes the black height of a path
+        if (!node.isRed()) {
+            // a red child can take over the black color of the removed node
+            if (child != null && child.isRed()) {
+                child.isRed = false;
+            } else {
+                ensureBlackProperty(child, parent);
+            }
+        }
+        if (root != null) {
+            ((RBTNode<T>) root).isRed = false;
+        }
+    }
+
+    /**
+     * Repairs a black property violation after a black node was removed: the paths through
+     * doubleBlack (which may be null when the removed node had no children) have one black node
+     * less than the other paths through parent. The violation is repaired with recolorings and
+     * at most three rotations, or moved one level up towards the root when the sibling and both of
+     * its children are black.
+     *
+     * @param doubleBlack the node that took the removed node's place, or null
+     * @param parent      the parent of doubleBlack
+     */
+    protected void ensureBlackProperty(RBTNode<T> doubleBlack, RBTNode<T> parent) {
+        while (parent != null && !isRed(doubleBlack)) {
+            // the sibling can't be null as its side holds at least one more black node
+            if (parent.getLeft() == doubleBlack) {
+                RBTNode<T> sibling = parent.getRight();
+                // case 1: red sibling, rotate it up so that doubleBlack gets a black sibling
+                if (sibling.isRed()) {
+                    sibling.isRed = false;
+                    parent.isRed = true;
+                    rotate(sibling, parent);
+                    sibling = parent.getRight();
+                }
+                // case 2: black sibling with black children, push the problem up to parent
+                if (!isRed(sibling.getLeft()) && !isRed(sibling.getRight())) {
+                    sibling.isRed = true;
+                    doubleBlack = parent;
+                    parent = parent.getUp();
+                    continue;
+                }
+                // case 3: only the inner nephew is red, rotate it into the outer position
+                if (!isRed(sibling.getRight())) {
+                    sibling.getLeft().isRed = false;
+                    sibling.isRed = true;
+                    rotate(sibling.getLeft(), sibling);
+                    sibling = parent.getRight();
+                }
+                // case 4: red outer nephew, rotate the sibling up to add a black node on our side
+                sibling.isRed = parent.isRed;
+                parent.isRed = false;
+                sibling.getRight().isRed = false;
+                rotate(sibling, parent);
+            } else {
+                RBTNode<T> sibling = parent.getLeft();
+                // case 1: red sibling, rotate it up so that doubleBlack gets a black sibling
+                if (sibling.isRed()) {
+                    sibling.isRed = false;
+                    parent.isRed = true;
+                    rotate(sibling, parent);
+                    sibling = parent.getLeft();
+                }
+                // case 2: black sibling with black children, push the problem up to parent
+                if (!isRed(sibling.getLeft()) && !isRed(sibling.getRight())) {
+                    sibling.isRed = true;
+                    doubleBlack = parent;
+                    parent = parent.getUp();
+                    continue;
+                }
+                // case 3: only the inner nephew is red, rotate it into the outer position
+                if (!isRed(sibling.getLeft())) {
+                    sibling.getRight().isRed = false;
+                    sibling.isRed = true;
+                    rotate(sibling.getRight(), sibling);
+                    sibling = parent.getLeft();
+                }
+                // case 4: red outer nephew, rotate the sibling up to add a black node on our side
+                sibling.isRed = parent.isRed;
+                parent.isRed = false;
+                sibling.getLeft().isRed = false;
+                rotate(sibling, parent);
+            }
+            // case 4 always repairs the violation
             return;
         }
-        // compares newNode to the current nodes left child
-        if (newNode.getData().compareTo(subtree.getData()) < 0) {
-            // if there's space in left child then newNode is added there
-            if (subtree.getLeft() == null) {
-                subtree.setLeft(newNode);
-                newNode.setUp(subtree);
-            }
-            // method is recursively called to go left again
-            insertHelper(newNode, subtree.getLeft());
-
-        } // compares newNode to the current nodes right child
-        else if (newNode.getData().compareTo(subtree.getData()) > 0) {
-            // if there's space in right child then newNode is added there
-            if (subtree.getRight() == null) {
-                subtree.setRight(newNode);
-                newNode.setUp(subtree);
-            }
-            // method is recursively called to go right again
-            insertHelper(newNode, subtree.getRight());
-        }
-
-    }
-    /**
-     * Tester that tests if there's a situation with a red aunt
-     * */
-    @Test
-    public void testCase1(){
-        RedBlackTree<T> test1 = new RedBlackTree<>();
-        test1.insert("J");
-        test1.insert("F");
-        test1.insert("W");
-        test1.insert("A");
-        test1.insert("H");
-        test1.insert("Y");
-        test1.insert("G");
-
-        String expected = "[ J(b), F(r), W(b), A(b), H(b), Y(r), G(r) ]";
-        String actual = test1.root.toLevelOrderString();
-        assertEquals(expected,actual,test1.toString());
-
-    }
-    /**
-     * Tester that tests if there's a situation with a null aunt from the quiz question 3
-     * */
-    @Test
-    public void testCase2() {
-        RedBlackTree<T> test2 = new RedBlackTree<>();
-
-        test2.insert("S");
-        test2.insert("J");
-        test2.insert("W");
-        test2.insert("N");
-        test2.insert("U");
-        test2.insert("Y");
-        test2.insert("L");
-        String expected = "[ S(b), L(b), W(b), J(r), N(r), U(r), Y(r) ]";
-        String actual = test2.root.toLevelOrderString();
-        assertEquals(expected, actual, test2.toString());
-    }
-    /**
-     * Complex test case that tests multiple cases
-     * */
-    @Test
-    public void testCase3(){
-        RedBlackTree<T> test3 = new RedBlackTree<>();
-        test3.insert("E");
-        test3.insert("C");
-        test3.insert("H");
-        test3.insert("A");
-        test3.insert("G");
-        test3.insert("F");
-        test3.insert("S");
-        test3.insert("N");
-        String expected = "[ E(b), C(b), G(r), A(r), F(b), N(b), H(r), S(r) ]";
-        String actual = test3.root.toLevelOrderString();
-        assertEquals(expected, actual, test3.toString());
+        // a red node (or the root) absorbs the extra black
+        if (doubleBlack != null) {
+            doubleBlack.isRed = false;
+        }
+    }
 
+    /**
+     * @return true if node is a red node, false if it is black or null
+     */
+    private static boolean isRed(RBTNode<?> node) {
+        return node != null && node.isRed();
+    }
+
+    /**
+     * Checks the red-black tree invariants of the whole tree: ordered keys, consistent parent
+     * references and subtree sizes, a black root, no red node with a red child and the same
+     * number of black nodes on every path from the root to a null child.
+     *
+     * @throws IllegalStateException if one of the invariants does not hold
+     */
+    protected void checkInvariants() {
+        if (root == null) {
+            if (size != 0) {
+                throw new IllegalStateException("empty tree with size " + size);
+            }
+            return;
+        }
+        if (root.getUp() != null || ((RBTNode<T>) root).isRed()) {
+            throw new IllegalStateException("root must be black and have no parent");
+        }
+        int[] count = new int[1];
+        checkInvariants((RBTNode<T>) root, null, null, count);
+        if (count[0] != size) {
+            throw new IllegalStateException("size is " + size + " but tree holds " + count[0]);
+        }
+    }
+
+    /**
+     * Checks the invariants of the subtree rooted at node, whose values must lie strictly between
+     * low and high (either of which may be null for no bound), and counts its values.
+     *
+     * @return the number of black nodes on every path from node to a null child
+     */
+    private int checkInvariants(RBTNode<T> node, T low, T high, int[] count) {
+        if (node == null) {
+            return 0;
+        }
+        count[0] += node.count;
+        if ((low != null && compare(node.getData(), low) <= 0)
+                || (high != null && compare(node.getData(), high) >= 0)) {
+            throw new IllegalStateException("out of order: " + node);
+        }
+        if ((node.getLeft() != null && node.getLeft().getUp() != node)
+                || (node.getRight() != null && node.getRight().getUp() != node)) {
+            throw new IllegalStateException("broken parent reference below " + node);
+        }
+        if (node.isRed() && (isRed(node.getLeft()) || isRed(node.getRight()))) {
+            throw new IllegalStateException("red node with red child: " + node);
+        }
+        if (node.count < 1 || (node.count > 1 && !multiset) || node.subtreeSize
+                != node.count + subtreeSize(node.getLeft()) + subtreeSize(node.getRight())) {
+            throw new IllegalStateException("wrong subtree size at " + node);
+        }
+        int leftBlackHeight = checkInvariants(node.getLeft(), low, node.getData(), count);
+        int rightBlackHeight = checkInvariants(node.getRight(), node.getData(), high, count);
+        if (leftBlackHeight != rightBlackHeight) {
+            throw new IllegalStateException("unequal black heights below " + node);
+        }
+        return leftBlackHeight + (node.isRed() ? 0 : 1);
     }
 }
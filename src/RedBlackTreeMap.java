@@ -0,0 +1,575 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.AbstractMap;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Sorted map from keys to values, stored in a RedBlackTree whose nodes hold a value next to
+ * their key. Every operation finds its key in a single descent from the root, and new keys are
+ * linked and rebalanced by the same insertion and removal repairs RedBlackTree uses. Keys can't
+ * be null, values can.
+ * */
+public class RedBlackTreeMap<K extends Comparable<K>, V> {
+
+    // the tree holding the keys, made of RBTMapNodes only
+    private final RedBlackTree<K> tree = new RedBlackTree<>();
+
+    /**
+     * Returns the value mapped to key.
+     *
+     * @param key the key to look up
+     * @return the value mapped to key, or null if key is not stored
+     * @throws NullPointerException if key is null
+     */
+    public V get(K key) {
+        RBTMapNode<K, V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * @param key the key to look for
+     * @return true if key is stored in the map, false otherwise
+     * @throws NullPointerException if key is null
+     */
+    public boolean containsKey(K key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Maps key to value, replacing any value key was mapped to before.
+     *
+     * @param key   the key to store
+     * @param value the value to map key to
+     * @return the value key was mapped to before, or null if there was none
+     * @throws NullPointerException if key is null
+     */
+    public V put(K key, V value) {
+        RBTMapNode<K, V> node = descend(key);
+        int comparison = node == null ? 0 : key.compareTo(node.getData());
+        if (node != null && comparison == 0) {
+            V previous = node.value;
+            node.value = value;
+            return previous;
+        }
+        link(new RBTMapNode<>(key, value), node, comparison);
+        return null;
+    }
+
+    /**
+     * Maps key to value unless key is already mapped to a non-null value.
+     *
+     * @param key   the key to store
+     * @param value the value to map key to
+     * @return the value key was mapped to before, or null if value was stored
+     * @throws NullPointerException if key is null
+     */
+    public V putIfAbsent(K key, V value) {
+        RBTMapNode<K, V> node = descend(key);
+        int comparison = node == null ? 0 : key.compareTo(node.getData());
+        if (node != null && comparison == 0) {
+            V previous = node.value;
+            if (previous == null) {
+                node.value = value;
+            }
+            return previous;
+        }
+        link(new RBTMapNode<>(key, value), node, comparison);
+        return null;
+    }
+
+    /**
+     * Returns the value mapped to key, first computing and storing one when key is not mapped to
+     * a non-null value. A null result from mappingFunction stores nothing. mappingFunction must
+     * not change the map.
+     *
+     * @param key             the key to look up
+     * @param mappingFunction computes the value for key from key
+     * @return the value mapped to key once this method returns, or null if there is none
+     * @throws NullPointerException            if key or mappingFunction is null
+     * @throws ConcurrentModificationException if mappingFunction changed the map
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null) {
+            throw new NullPointerException();
+        }
+        RBTMapNode<K, V> node = descend(key);
+        int comparison = node == null ? 0 : key.compareTo(node.getData());
+        if (node != null && comparison == 0) {
+            if (node.value == null) {
+                node.value = apply(mappingFunction, key);
+            }
+            return node.value;
+        }
+        // node is only the right parent for the new key as long as the function leaves the
+        // map alone
+        V value = apply(mappingFunction, key);
+        if (value != null) {
+            link(new RBTMapNode<>(key, value), node, comparison);
+        }
+        return value;
+    }
+
+    /**
+     * Maps key to value if key is not mapped to a non-null value yet, and otherwise to the
+     * result of remappingFunction applied to the old value and value. A null result removes key.
+     * remappingFunction must not change the map.
+     *
+     * @param key               the key to store
+     * @param value             the value to store or to combine with the old value
+     * @param remappingFunction combines the old value and value into the new value
+     * @return the value mapped to key once this method returns, or null if key was removed
+     * @throws NullPointerException            if key, value or remappingFunction is null
+     * @throws ConcurrentModificationException if remappingFunction changed the map
+     */
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        RBTMapNode<K, V> node = descend(key);
+        int comparison = node == null ? 0 : key.compareTo(node.getData());
+        if (node != null && comparison == 0) {
+            V merged = value;
+            if (node.value != null) {
+                int expectedModCount = tree.modCount;
+                merged = remappingFunction.apply(node.value, value);
+                if (tree.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+            if (merged == null) {
+                tree.removeNode(node);
+            } else {
+                node.value = merged;
+            }
+            return merged;
+        }
+        link(new RBTMapNode<>(key, value), node, comparison);
+        return value;
+    }
+
+    /**
+     * Removes key and the value mapped to it.
+     *
+     * @param key the key to remove
+     * @return the value key was mapped to, or null if key was not stored
+     * @throws NullPointerException if key is null
+     */
+    public V remove(K key) {
+        RBTMapNode<K, V> node = find(key);
+        if (node == null) {
+            return null;
+        }
+        V value = node.value;
+        tree.removeNode(node);
+        return value;
+    }
+
+    /**
+     * @return the number of keys in the map
+     */
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * @return true if the map holds no keys, false otherwise
+     */
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /**
+     * Removes all keys and values from the map.
+     */
+    public void clear() {
+        tree.clear();
+    }
+
+    /**
+     * @return the smallest key
+     * @throws NoSuchElementException if the map is empty
+     */
+    public K firstKey() {
+        return tree.first();
+    }
+
+    /**
+     * @return the largest key
+     * @throws NoSuchElementException if the map is empty
+     */
+    public K lastKey() {
+        return tree.last();
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the largest key less than or equal to key, or null if there is none
+     * @throws NullPointerException if key is null
+     */
+    public K floorKey(K key) {
+        return tree.floor(key);
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the largest key strictly less than key, or null if there is none
+     * @throws NullPointerException if key is null
+     */
+    public K lowerKey(K key) {
+        return tree.lower(key);
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the smallest key greater than or equal to key, or null if there is none
+     * @throws NullPointerException if key is null
+     */
+    public K ceilingKey(K key) {
+        return tree.ceiling(key);
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the smallest key strictly greater than key, or null if there is none
+     * @throws NullPointerException if key is null
+     */
+    public K higherKey(K key) {
+        return tree.higher(key);
+    }
+
+    /**
+     * @return the entry with the smallest key, or null if the map is empty
+     */
+    public Map.Entry<K, V> firstEntry() {
+        return entryOf(BinarySearchTree.leftMost(tree.root));
+    }
+
+    /**
+     * @return the entry with the largest key, or null if the map is empty
+     */
+    public Map.Entry<K, V> lastEntry() {
+        BSTNode<K> node = tree.root;
+        while (node != null && node.getRight() != null) {
+            node = node.getRight();
+        }
+        return entryOf(node);
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the entry with the largest key less than or equal to key, or null if there is none
+     * @throws NullPointerException if key is null
+     */
+    public Map.Entry<K, V> floorEntry(K key) {
+        return entryOf(tree.floorNode(key, true));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the entry with the largest key strictly less than key, or null if there is none
+     * @throws NullPointerException if key is null
+     */
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return entryOf(tree.floorNode(key, false));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the entry with the smallest key greater than or equal to key, or null if there is
+     * none
+     * @throws NullPointerException if key is null
+     */
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return entryOf(tree.ceilingNode(key, true));
+    }
+
+    /**
+     * @param key the key to search for
+     * @return the entry with the smallest key strictly greater than key, or null if there is none
+     * @throws NullPointerException if key is null
+     */
+    public Map.Entry<K, V> higherEntry(K key) {
+        return entryOf(tree.ceilingNode(key, false));
+    }
+
+    /**
+     * Returns the entries in ascending key order. The entries are snapshots: they don't change
+     * when the map does, and setValue is not supported. Like RedBlackTree's iterators, the
+     * iterators fail when the map is changed while iterating.
+     *
+     * @return an Iterable over the entries of this map
+     */
+    public Iterable<Map.Entry<K, V>> entries() {
+        return () -> new Iterator<Map.Entry<K, V>>() {
+            // node holding the entry next() returns, or null at the end
+            private BSTNode<K> next = BinarySearchTree.leftMost(tree.root);
+            // modCount the tree must still have for this iterator to be valid
+            private final int expectedModCount = tree.modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                if (tree.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                Map.Entry<K, V> entry = entryOf(next);
+                next = BinarySearchTree.successor(next);
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Returns the keys in ascending order. The Iterable is a read-only view: its iterators don't
+     * support remove, and like RedBlackTree's iterators they fail when the map is changed while
+     * iterating.
+     *
+     * @return an Iterable over the keys of this map
+     */
+    public Iterable<K> keys() {
+        return () -> new Iterator<K>() {
+            private final Iterator<K> keys = tree.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return keys.next();
+            }
+        };
+    }
+
+    /**
+     * Applies mappingFunction to key, failing if the function changed the map, which would leave
+     * a node found before the call in the wrong place or out of the tree.
+     *
+     * @throws ConcurrentModificationException if mappingFunction changed the map
+     */
+    private V apply(Function<? super K, ? extends V> mappingFunction, K key) {
+        int expectedModCount = tree.modCount;
+        V value = mappingFunction.apply(key);
+        if (tree.modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        return value;
+    }
+
+    /**
+     * Walks down from the root to the node holding key, comparing once per level.
+     *
+     * @return the node holding key, or null if key is not stored
+     */
+    @SuppressWarnings("unchecked")
+    private RBTMapNode<K, V> find(K key) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        BSTNode<K> current = tree.root;
+        while (current != null) {
+            int comparison = key.compareTo(current.getData());
+            if (comparison == 0) {
+                return (RBTMapNode<K, V>) current;
+            }
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        return null;
+    }
+
+    /**
+     * Walks down from the root like find, but keeps the last node it passed when key is not
+     * stored, so that a new node for key can be linked below it without another descent.
+     *
+     * @return the node holding key, the node key belongs under, or null if the map is empty
+     */
+    @SuppressWarnings("unchecked")
+    private RBTMapNode<K, V> descend(K key) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        BSTNode<K> current = tree.root;
+        BSTNode<K> parent = null;
+        while (current != null) {
+            int comparison = key.compareTo(current.getData());
+            if (comparison == 0) {
+                return (RBTMapNode<K, V>) current;
+            }
+            parent = current;
+            current = comparison < 0 ? current.getLeft() : current.getRight();
+        }
+        return (RBTMapNode<K, V>) parent;
+    }
+
+    /**
+     * Links newNode below parent, on the side given by comparing the new key with the key of
+     * parent, and repairs any red property violation this causes. A null parent makes newNode the
+     * root of an empty map.
+     */
+    private void link(RBTMapNode<K, V> newNode, RBTMapNode<K, V> parent, int comparison) {
+        if (parent == null) {
+            tree.root = newNode;
+            tree.size++;
+            tree.modCount++;
+        } else {
+            tree.link(newNode, parent, comparison < 0);
+            tree.ensureRedProperty(newNode);
+        }
+        ((RBTNode<K>) tree.root).isRed = false;
+    }
+
+    /**
+     * @return an immutable copy of the key and value in node, or null if node is null
+     */
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> entryOf(BSTNode<K> node) {
+        if (node == null) {
+            return null;
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(node.getData(),
+                ((RBTMapNode<K, V>) node).value);
+    }
+
+    /**
+     * Tester that applies random puts, merges, computeIfAbsent calls and removes, comparing
+     * against java.util.TreeMap and checking the red-black invariants along the way
+     * */
+    @Test
+    public void testAgainstTreeMap() {
+        RedBlackTreeMap<Integer, Integer> test1 = new RedBlackTreeMap<>();
+        java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<>();
+        java.util.Random random = new java.util.Random(14);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(1000);
+            int value = random.nextInt(10);
+            switch (random.nextInt(5)) {
+                case 0:
+                    assertEquals(expected.put(key, value), test1.put(key, value));
+                    break;
+                case 1:
+                    assertEquals(expected.putIfAbsent(key, value), test1.putIfAbsent(key, value));
+                    break;
+                case 2:
+                    // merging to 0 removes the key
+                    BiFunction<Integer, Integer, Integer> subtract =
+                            (a, b) -> a - b <= 0 ? null : a - b;
+                    assertEquals(expected.merge(key, value, subtract),
+                            test1.merge(key, value, subtract));
+                    break;
+                case 3:
+                    assertEquals(expected.computeIfAbsent(key, k -> k % 3 == 0 ? null : k),
+                            test1.computeIfAbsent(key, k -> k % 3 == 0 ? null : k));
+                    break;
+                default:
+                    assertEquals(expected.remove(key), test1.remove(key));
+            }
+            if (i % 1000 == 0) {
+                test1.tree.checkInvariants();
+            }
+        }
+        test1.tree.checkInvariants();
+        assertEquals(expected.size(), test1.size());
+        for (int key = -1; key <= 1000; key++) {
+            assertEquals(expected.get(key), test1.get(key));
+            assertEquals(expected.containsKey(key), test1.containsKey(key));
+        }
+        java.util.List<Map.Entry<Integer, Integer>> entries = new java.util.ArrayList<>();
+        test1.entries().forEach(entries::add);
+        assertEquals(new java.util.ArrayList<>(expected.entrySet()), entries);
+    }
+
+    /**
+     * Tester for the ordered navigation methods and for values staying with their keys when a
+     * node with two children is removed
+     * */
+    @Test
+    public void testNavigation() {
+        RedBlackTreeMap<Integer, String> test2 = new RedBlackTreeMap<>();
+        assertNull(test2.firstEntry());
+        assertThrows(NoSuchElementException.class, test2::firstKey);
+        for (int key = 10; key <= 100; key += 10) {
+            test2.put(key, "v" + key);
+        }
+        assertEquals(10, test2.firstKey());
+        assertEquals(100, test2.lastKey());
+        assertEquals(30, test2.floorKey(35));
+        assertEquals(20, test2.lowerKey(30));
+        assertEquals(40, test2.ceilingKey(35));
+        assertEquals(40, test2.higherKey(30));
+        assertEquals("v30", test2.floorEntry(35).getValue());
+        assertEquals("v40", test2.ceilingEntry(35).getValue());
+        assertEquals("v10", test2.firstEntry().getValue());
+        assertEquals("v100", test2.lastEntry().getValue());
+        assertNull(test2.ceilingEntry(101));
+        assertEquals("v20", test2.lowerEntry(30).getValue());
+        assertEquals("v40", test2.higherEntry(30).getValue());
+        assertNull(test2.lowerEntry(10));
+        assertNull(test2.higherEntry(100));
+        // keys() is a read-only view, not the tree holding the keys
+        assertFalse(test2.keys() instanceof SortedCollection);
+        assertThrows(UnsupportedOperationException.class,
+                () -> test2.keys().iterator().remove());
+        // the root has two children, so removing it moves its successor's key and value up
+        Integer rootKey = test2.tree.root.getData();
+        assertEquals("v" + rootKey, test2.remove(rootKey));
+        for (Map.Entry<Integer, String> entry : test2.entries()) {
+            assertEquals("v" + entry.getKey(), entry.getValue());
+        }
+        Iterator<Map.Entry<Integer, String>> iterator = test2.entries().iterator();
+        iterator.next();
+        test2.put(5, "v5");
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    /**
+     * Tester for callbacks that change the map, which must fail instead of linking a new node
+     * below a parent that is no longer the right one
+     * */
+    @Test
+    public void testCallbackChangesMap() {
+        RedBlackTreeMap<Integer, String> test3 = new RedBlackTreeMap<>();
+        assertThrows(ConcurrentModificationException.class,
+                () -> test3.computeIfAbsent(1, k -> {
+                    test3.put(2, "x");
+                    return "y";
+                }));
+        assertEquals(1, test3.size());
+        assertEquals("x", test3.get(2));
+        assertNull(test3.get(1));
+        test3.tree.checkInvariants();
+        test3.put(3, null);
+        assertThrows(ConcurrentModificationException.class,
+                () -> test3.computeIfAbsent(3, k -> {
+                    test3.remove(3);
+                    return "y";
+                }));
+        assertFalse(test3.containsKey(3));
+        test3.put(4, "a");
+        assertThrows(ConcurrentModificationException.class,
+                () -> test3.merge(4, "b", (a, b) -> {
+                    test3.remove(4);
+                    return a + b;
+                }));
+        assertFalse(test3.containsKey(4));
+        test3.tree.checkInvariants();
+        // callbacks that leave the map alone still work
+        assertEquals("y", test3.computeIfAbsent(1, k -> "y"));
+        assertEquals("ab", test3.merge(1, "b", (a, b) -> "a" + b));
+        assertEquals(2, test3.size());
+    }
+}
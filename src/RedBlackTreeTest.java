@@ -0,0 +1,603 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+
+/**
+ * Tests for RedBlackTree.
+ * */
+public class RedBlackTreeTest {
+
+    /**
+     * Tester that tests if there's a situation with a red aunt
+     * */
+    @Test
+    public void testCase1(){
+        RedBlackTree<String> test1 = new RedBlackTree<>();
+        test1.insert("J");
+        test1.insert("F");
+        test1.insert("W");
+        test1.insert("A");
+        test1.insert("H");
+        test1.insert("Y");
+        test1.insert("G");
+
+        String expected = "[ J(b), F(r), W(b), A(b), H(b), Y(r), G(r) ]";
+        String actual = test1.root.toLevelOrderString();
+        assertEquals(expected,actual,test1.toString());
+
+    }
+    /**
+     * Tester that tests if there's a situation with a null aunt from the quiz question 3
+     * */
+    @Test
+    public void testCase2() {
+        RedBlackTree<String> test2 = new RedBlackTree<>();
+
+        test2.insert("S");
+        test2.insert("J");
+        test2.insert("W");
+        test2.insert("N");
+        test2.insert("U");
+        test2.insert("Y");
+        test2.insert("L");
+        String expected = "[ S(b), L(b), W(b), J(r), N(r), U(r), Y(r) ]";
+        String actual = test2.root.toLevelOrderString();
+        assertEquals(expected, actual, test2.toString());
+    }
+    /**
+     * Complex test case that tests multiple cases
+     * */
+    @Test
+    public void testCase3(){
+        RedBlackTree<String> test3 = new RedBlackTree<>();
+        test3.insert("E");
+        test3.insert("C");
+        test3.insert("H");
+        test3.insert("A");
+        test3.insert("G");
+        test3.insert("F");
+        test3.insert("S");
+        test3.insert("N");
+        String expected = "[ E(b), C(b), G(r), A(r), F(b), N(b), H(r), S(r) ]";
+        String actual = test3.root.toLevelOrderString();
+        assertEquals(expected, actual, test3.toString());
+
+    }
+    /**
+     * Tester that checks that size counts every inserted node once, across the rotations done by
+     * ensureRedProperty, and ignores values that are already stored
+     * */
+    @Test
+    public void testSize() {
+        RedBlackTree<Integer> test4 = new RedBlackTree<>();
+        for (int i = 1; i <= 100; i++) {
+            test4.insert(i);
+        }
+        test4.insert(50);
+        assertEquals(100, test4.size());
+        assertTrue(test4.contains(1) && test4.contains(100));
+        test4.clear();
+        assertEquals(0, test4.size());
+        assertTrue(test4.isEmpty());
+    }
+    /**
+     * Tester that removes leaves, nodes with one child and nodes with two children, including
+     * the root, and checks the shape and colors afterwards
+     * */
+    @Test
+    public void testRemove() {
+        RedBlackTree<Integer> test5 = new RedBlackTree<>();
+        for (int i = 1; i <= 7; i++) {
+            test5.insert(i);
+        }
+        assertFalse(test5.remove(8));
+        assertTrue(test5.remove(2));
+        assertTrue(test5.remove(4));
+        assertFalse(test5.contains(2));
+        assertFalse(test5.contains(4));
+        assertEquals(5, test5.size());
+        test5.checkInvariants();
+        assertEquals("[ 1, 3, 5, 6, 7 ]", test5.root.toInOrderString().replaceAll("\\([rb]\\)", ""));
+    }
+
+    /**
+     * Tester that drains a tree from both ends with pollFirst and pollLast
+     * */
+    @Test
+    public void testPollFirstAndLast() {
+        RedBlackTree<Integer> test6 = new RedBlackTree<>();
+        assertNull(test6.pollFirst());
+        assertNull(test6.pollLast());
+        for (int i = 0; i < 100; i++) {
+            test6.insert((i * 37) % 100);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, test6.pollFirst());
+            assertEquals(99 - i, test6.pollLast());
+            test6.checkInvariants();
+        }
+        assertTrue(test6.isEmpty());
+    }
+
+    /**
+     * Tester that applies random inserts and removes, comparing against java.util.TreeSet and
+     * checking the red-black invariants after every single mutation
+     * */
+    @Test
+    public void testRandomMutations() {
+        java.util.Random random = new java.util.Random(400);
+        for (int round = 0; round < 20; round++) {
+            RedBlackTree<Integer> test7 = new RedBlackTree<>();
+            java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+            for (int i = 0; i < 2000; i++) {
+                int key = random.nextInt(500);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), test7.remove(key));
+                } else if (random.nextInt(10) == 0) {
+                    assertEquals(expected.pollFirst(), test7.pollFirst());
+                } else {
+                    expected.add(key);
+                    test7.insert(key);
+                }
+                test7.checkInvariants();
+                assertEquals(expected.size(), test7.size());
+            }
+        }
+    }
+    /**
+     * Tester that bulk builds trees of every size up to 200 from sorted arrays and checks their
+     * invariants and contents
+     * */
+    @Test
+    public void testFromSorted() {
+        for (int n = 0; n <= 200; n++) {
+            Integer[] values = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = i * 2;
+            }
+            RedBlackTree<Integer> test8 = RedBlackTree.fromSorted(values);
+            test8.checkInvariants();
+            assertEquals(n, test8.size());
+            for (int i = 0; i < n; i++) {
+                assertTrue(test8.contains(i * 2));
+                assertFalse(test8.contains(i * 2 + 1));
+            }
+            // the bulk built tree keeps working with the regular insert and remove
+            test8.insert(-1);
+            test8.remove(0);
+            test8.checkInvariants();
+        }
+    }
+
+    /**
+     * Tester that bulk builds from unsorted input with duplicates and through addAll
+     * */
+    @Test
+    public void testFromUnsortedAndAddAll() {
+        RedBlackTree<String> test9 = RedBlackTree.fromSorted(
+                java.util.List.of("M", "C", "X", "C", "A", "M").iterator());
+        test9.checkInvariants();
+        assertEquals("[ A, C, M, X ]", test9.root.toInOrderString().replaceAll("\\([rb]\\)", ""));
+
+        RedBlackTree<Integer> test10 = new RedBlackTree<>();
+        test10.addAll(java.util.List.of(5, 3, 9, 1));
+        test10.addAll(java.util.List.of(4, 9, 2));
+        test10.checkInvariants();
+        assertEquals(6, test10.size());
+        assertThrows(NullPointerException.class,
+                () -> RedBlackTree.fromSorted(new Integer[] {1, null, 3}));
+    }
+    /**
+     * Tester that splits the spliterator of a tree down to single values and checks that the
+     * pieces cover every value exactly once and in order, and that parallel streams agree
+     * */
+    @Test
+    public void testSpliterator() {
+        RedBlackTree<Integer> test11 = new RedBlackTree<>();
+        java.util.Random random = new java.util.Random(10);
+        for (int i = 0; i < 5000; i++) {
+            test11.insert(random.nextInt(100000));
+        }
+        java.util.List<Integer> collected = new java.util.ArrayList<>();
+        splitAndCollect(test11.spliterator(), collected);
+        java.util.List<Integer> expected = new java.util.ArrayList<>();
+        test11.forEach(expected::add);
+        assertEquals(expected, collected);
+        assertEquals(test11.size(), expected.size());
+        assertEquals(expected.stream().mapToLong(Integer::longValue).sum(),
+                test11.parallelStream().mapToLong(Integer::longValue).sum());
+        assertTrue(test11.spliterator().hasCharacteristics(java.util.Spliterator.SIZED));
+    }
+
+    /**
+     * Splits spliterator as often as possible and collects the values of the pieces in order
+     */
+    private static void splitAndCollect(java.util.Spliterator<Integer> spliterator,
+                                        java.util.List<Integer> collected) {
+        java.util.Spliterator<Integer> prefix = spliterator.trySplit();
+        if (prefix != null) {
+            splitAndCollect(prefix, collected);
+            splitAndCollect(spliterator, collected);
+        } else {
+            spliterator.forEachRemaining(collected::add);
+        }
+    }
+    /**
+     * Tester that compares floor, ceiling, lower, higher, first, last and range with
+     * java.util.TreeSet on random values
+     * */
+    @Test
+    public void testNavigation() {
+        RedBlackTree<Integer> test12 = new RedBlackTree<>();
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        java.util.Random random = new java.util.Random(11);
+        assertThrows(java.util.NoSuchElementException.class, test12::first);
+        for (int i = 0; i < 500; i++) {
+            int value = random.nextInt(2000);
+            test12.insert(value);
+            expected.add(value);
+        }
+        assertEquals(expected.first(), test12.first());
+        assertEquals(expected.last(), test12.last());
+        for (int value = -5; value < 2005; value++) {
+            assertEquals(expected.floor(value), test12.floor(value));
+            assertEquals(expected.lower(value), test12.lower(value));
+            assertEquals(expected.ceiling(value), test12.ceiling(value));
+            assertEquals(expected.higher(value), test12.higher(value));
+        }
+        for (int i = 0; i < 200; i++) {
+            int low = random.nextInt(2100) - 50;
+            int high = low + random.nextInt(300);
+            java.util.List<Integer> actual = new java.util.ArrayList<>();
+            test12.range(low, high).forEach(actual::add);
+            assertEquals(new java.util.ArrayList<>(expected.subSet(low, high)), actual);
+        }
+        assertThrows(IllegalArgumentException.class, () -> test12.range(5, 4));
+    }
+
+    /**
+     * Tester that compares rank, select and countInRange with java.util.TreeSet while values are
+     * inserted and removed, and on a bulk built tree
+     * */
+    @Test
+    public void testOrderStatistics() {
+        RedBlackTree<Integer> test13 = new RedBlackTree<>();
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        java.util.Random random = new java.util.Random(12);
+        for (int i = 0; i < 3000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                test13.remove(value);
+            } else {
+                expected.add(value);
+                test13.insert(value);
+            }
+        }
+        test13.checkInvariants();
+        java.util.List<Integer> sorted = new java.util.ArrayList<>(expected);
+        for (int index = 0; index < sorted.size(); index++) {
+            assertEquals(sorted.get(index), test13.select(index));
+        }
+        for (int value = -5; value < 1005; value++) {
+            assertEquals(expected.headSet(value).size(), test13.rank(value));
+        }
+        for (int i = 0; i < 200; i++) {
+            int low = random.nextInt(1100) - 50;
+            int high = low + random.nextInt(300);
+            assertEquals(expected.subSet(low, high).size(), test13.countInRange(low, high));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> test13.select(sorted.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> test13.select(-1));
+        RedBlackTree<Integer> test14 = RedBlackTree.fromSorted(sorted.toArray(new Integer[0]));
+        test14.checkInvariants();
+        assertEquals(sorted.get(sorted.size() / 2), test14.select(sorted.size() / 2));
+        assertEquals(sorted.size(), test14.countInRange(-1, 1000));
+    }
+
+    /**
+     * Tester that compares a multiset tree with a java.util.TreeMap of counts while heavily
+     * duplicated values are inserted and removed
+     * */
+    @Test
+    public void testMultiset() {
+        RedBlackTree<Integer> test15 = new RedBlackTree<>(true);
+        java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<>();
+        java.util.Random random = new java.util.Random(13);
+        int expectedSize = 0;
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(100);
+            if (random.nextInt(3) == 0) {
+                boolean stored = expected.containsKey(value);
+                assertEquals(stored, test15.remove(value));
+                if (stored) {
+                    expected.merge(value, -1, (a, b) -> a + b == 0 ? null : a + b);
+                    expectedSize--;
+                }
+            } else {
+                test15.insert(value);
+                expected.merge(value, 1, Integer::sum);
+                expectedSize++;
+            }
+        }
+        test15.checkInvariants();
+        assertEquals(expectedSize, test15.size());
+        java.util.List<Integer> all = new java.util.ArrayList<>();
+        for (int value = -1; value <= 100; value++) {
+            int copies = expected.getOrDefault(value, 0);
+            assertEquals(copies, test15.count(value));
+            for (int copy = 0; copy < copies; copy++) {
+                all.add(value);
+            }
+        }
+        // iteration, streams and select see every copy
+        java.util.List<Integer> iterated = new java.util.ArrayList<>();
+        test15.forEach(iterated::add);
+        assertEquals(all, iterated);
+        assertEquals(expectedSize, test15.parallelStream().count());
+        for (int index = 0; index < all.size(); index += 7) {
+            assertEquals(all.get(index), test15.select(index));
+        }
+        assertEquals(all.indexOf(50), test15.rank(50));
+        // an empty multiset tree is bulk built with runs collapsed into counts
+        RedBlackTree<Integer> test16 = new RedBlackTree<>(true);
+        test16.addAll(all);
+        test16.checkInvariants();
+        assertEquals(all.size(), test16.size());
+        assertEquals(expected.firstEntry().getValue(), test16.count(expected.firstKey()));
+        // a set tree still drops duplicates
+        RedBlackTree<Integer> test17 = new RedBlackTree<>();
+        test17.insert(1);
+        test17.insert(1);
+        assertEquals(1, test17.size());
+        assertEquals(1, test17.count(1));
+    }
+
+    /**
+     * Tester that inserts batches of several sizes, both small ones that take the finger path and
+     * large ones that rebuild the tree, into set and multiset trees and compares with TreeMap
+     * */
+    @Test
+    public void testInsertAll() {
+        java.util.Random random = new java.util.Random(15);
+        for (boolean multiset : new boolean[] {false, true}) {
+            RedBlackTree<Integer> test18 = new RedBlackTree<>(multiset);
+            java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<>();
+            for (int batchSize : new int[] {100, 3, 20, 1000, 7, 50, 0, 400, 1}) {
+                Integer[] batch = new Integer[batchSize];
+                for (int i = 0; i < batchSize; i++) {
+                    batch[i] = random.nextInt(3000);
+                    expected.merge(batch[i], 1, multiset ? Integer::sum : (a, b) -> 1);
+                }
+                test18.insertAll(batch);
+                test18.checkInvariants();
+                java.util.List<Integer> actual = new java.util.ArrayList<>();
+                test18.forEach(actual::add);
+                java.util.List<Integer> all = new java.util.ArrayList<>();
+                expected.forEach((value, copies) -> {
+                    for (int copy = 0; copy < copies; copy++) {
+                        all.add(value);
+                    }
+                });
+                assertEquals(all, actual);
+            }
+        }
+        assertThrows(NullPointerException.class,
+                () -> new RedBlackTree<Integer>().insertAll(new Integer[] {1, null}));
+    }
+
+    /**
+     * Tester that looks up random walks of nearby values and random values through a cursor while
+     * the tree changes, comparing with java.util.TreeSet
+     * */
+    @Test
+    public void testCursor() {
+        RedBlackTree<Integer> test19 = new RedBlackTree<>();
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        java.util.Random random = new java.util.Random(16);
+        BinarySearchTree<Integer>.Cursor cursor = test19.cursor();
+        assertFalse(cursor.contains(1));
+        int position = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (i % 50 == 0) {
+                int value = random.nextInt(2000);
+                if (random.nextBoolean()) {
+                    test19.insert(value);
+                    expected.add(value);
+                } else {
+                    test19.remove(value);
+                    expected.remove(value);
+                }
+            }
+            position = i % 7 == 0 ? random.nextInt(2000) : position + random.nextInt(9) - 3;
+            assertEquals(expected.contains(position), cursor.contains(position));
+        }
+    }
+
+    /**
+     * Tester that writes set and multiset trees to a file and reads them back, and checks that
+     * truncated and foreign files are rejected
+     * */
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Path file = java.nio.file.Files.createTempFile("rbt", ".bin");
+        try {
+            java.util.Random random = new java.util.Random(18);
+            for (boolean multiset : new boolean[] {false, true}) {
+                RedBlackTree<Long> test20 = new RedBlackTree<>(multiset);
+                for (int i = 0; i < 100000; i++) {
+                    test20.insert((long) random.nextInt(50000));
+                }
+                test20.writeTo(file, FixedWidthCodec.LONG);
+                RedBlackTree<Long> test21 = RedBlackTree.readFrom(file, FixedWidthCodec.LONG);
+                test21.checkInvariants();
+                assertEquals(test20.size(), test21.size());
+                java.util.List<Long> expected = new java.util.ArrayList<>();
+                test20.forEach(expected::add);
+                java.util.List<Long> actual = new java.util.ArrayList<>();
+                test21.forEach(actual::add);
+                assertEquals(expected, actual);
+            }
+            // an empty tree round trips as well
+            new RedBlackTree<Long>().writeTo(file, FixedWidthCodec.LONG);
+            assertTrue(RedBlackTree.readFrom(file, FixedWidthCodec.LONG).isEmpty());
+            // a codec of another width and a cut off file are detected
+            RedBlackTree<Long> test22 = RedBlackTree.fromSorted(new Long[] {1L, 2L, 3L});
+            test22.writeTo(file, FixedWidthCodec.LONG);
+            assertThrows(IllegalArgumentException.class,
+                    () -> RedBlackTree.readFrom(file, FixedWidthCodec.INTEGER));
+            // record counts that are negative or larger than the file are rejected before reading
+            byte[] bytes = java.nio.file.Files.readAllBytes(file);
+            java.nio.ByteBuffer.wrap(bytes).putInt(16, -1);
+            java.nio.file.Files.write(file, bytes);
+            assertThrows(IllegalArgumentException.class,
+                    () -> RedBlackTree.readFrom(file, FixedWidthCodec.LONG));
+            java.nio.ByteBuffer.wrap(bytes).putInt(16, Integer.MAX_VALUE);
+            java.nio.file.Files.write(file, bytes);
+            assertThrows(IllegalArgumentException.class,
+                    () -> RedBlackTree.readFrom(file, FixedWidthCodec.LONG));
+            java.nio.ByteBuffer.wrap(bytes).putInt(16, 3);
+            java.nio.file.Files.write(file, bytes);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 1);
+            }
+            assertThrows(IllegalArgumentException.class,
+                    () -> RedBlackTree.readFrom(file, FixedWidthCodec.LONG));
+            // a channel that can't tell its size finds the missing byte while reading
+            byte[] truncated = java.nio.file.Files.readAllBytes(file);
+            assertThrows(EOFException.class, () -> RedBlackTree.readFrom(
+                    java.nio.channels.Channels.newChannel(new java.io.ByteArrayInputStream(truncated)),
+                    FixedWidthCodec.LONG));
+        } finally {
+            java.nio.file.Files.delete(file);
+        }
+    }
+
+    /**
+     * Tester that inserts 10^7 sorted values on a thread with a 128 KB stack, the input that
+     * makes every insert repair the tree up its right spine, and checks that the tree stays
+     * balanced
+     * */
+    @Test
+    public void testSortedStress() throws InterruptedException {
+        int n = 10_000_000;
+        RedBlackTree<Integer> test23 = new RedBlackTree<>();
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                for (int i = 0; i < n; i++) {
+                    test23.insert(i);
+                }
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        }, "small-stack", 128 * 1024);
+        thread.start();
+        thread.join();
+        assertNull(failure[0]);
+        assertEquals(n, test23.size());
+        // a red black tree of n nodes is at most 2 log2(n + 1) levels high
+        assertTrue(test23.height() <= 2 * (32 - Integer.numberOfLeadingZeros(n + 1)));
+        assertEquals(0, test23.select(0));
+        assertEquals(n - 1, test23.select(n - 1));
+        test23.checkInvariants();
+    }
+
+    /**
+     * Tester that orders values with a comparator and with a key extractor, and checks that
+     * searches, order statistics, batches, removals and a round trip through a file all follow
+     * that ordering
+     * */
+    @Test
+    public void testCustomOrdering() throws IOException {
+        java.util.Random random = new java.util.Random(22);
+        RedBlackTree<Integer> test24 = new RedBlackTree<>(Comparator.<Integer>reverseOrder());
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>(Comparator.reverseOrder());
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(5000);
+            test24.insert(value);
+            expected.add(value);
+        }
+        Integer[] batch = new Integer[3000];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = random.nextInt(5000);
+            expected.add(batch[i]);
+        }
+        test24.insertAll(batch);
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(5000);
+            assertEquals(expected.remove(value), test24.remove(value));
+        }
+        test24.checkInvariants();
+        java.util.List<Integer> actual = new java.util.ArrayList<>();
+        test24.forEach(actual::add);
+        assertEquals(new java.util.ArrayList<>(expected), actual);
+        assertEquals(expected.first(), test24.select(0));
+        assertEquals(expected.headSet(2500).size(), test24.rank(2500));
+        assertTrue(test24.contains(expected.last()));
+        // the spliterator reports the ordering it sorts by
+        assertEquals(Comparator.reverseOrder(), test24.spliterator().getComparator());
+
+        // strings keyed by their length: values of equal length are duplicates
+        RedBlackTree<String> test25 = new RedBlackTree<>(String::length);
+        for (String value : new String[] {"ccc", "a", "bb", "dd", "eeeee"}) {
+            test25.insert(value);
+        }
+        assertEquals(4, test25.size());
+        assertTrue(test25.contains("zz"));
+        assertFalse(test25.contains("zzzz"));
+        assertEquals("[a, bb, ccc, eeeee]", test25.stream().collect(
+                java.util.stream.Collectors.toList()).toString());
+        test25.checkInvariants();
+
+        // the stream holds no ordering, so it is read back with the comparator it was written in
+        Path file = java.nio.file.Files.createTempFile("rbt", ".bin");
+        try {
+            test24.writeTo(file, FixedWidthCodec.INTEGER);
+            assertThrows(java.io.StreamCorruptedException.class,
+                    () -> RedBlackTree.readFrom(file, FixedWidthCodec.INTEGER));
+            RedBlackTree<Integer> test27 = RedBlackTree.readFrom(file, FixedWidthCodec.INTEGER,
+                    Comparator.<Integer>reverseOrder());
+            test27.checkInvariants();
+            java.util.List<Integer> read = new java.util.ArrayList<>();
+            test27.forEach(read::add);
+            assertEquals(actual, read);
+            test27.insert(-1);
+            assertEquals(-1, test27.last());
+        } finally {
+            java.nio.file.Files.delete(file);
+        }
+    }
+
+    /**
+     * Tester that checks that a rebuild by insertAll creates its nodes through createNode, so a
+     * subclass that stores its own node type gets that type for every node
+     * */
+    @Test
+    public void testRebuildUsesCreateNode() {
+        int[] created = new int[1];
+        RedBlackTree<Integer> test26 = new RedBlackTree<>() {
+            @Override
+            protected BSTNode<Integer> createNode(Integer data) {
+                created[0]++;
+                return super.createNode(data);
+            }
+        };
+        test26.insert(0);
+        Integer[] batch = new Integer[100];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = i + 1;
+        }
+        // a batch this much larger than the tree makes insertAll rebuild it from scratch
+        test26.insertAll(batch);
+        test26.checkInvariants();
+        assertEquals(101, test26.size());
+        assertEquals(1 + 101, created[0]);
+    }
+}
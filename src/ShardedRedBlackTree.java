@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Thread-safe sorted collection that range-partitions its values across several shards. Every
+ * shard is a ConcurrentRedBlackTree with its own lock, so writers whose values fall into
+ * different shards never wait for each other, while a single ConcurrentRedBlackTree lets only one
+ * writer in at a time. The shard boundaries are fixed at construction and chosen as quantiles of
+ * a sample of the values, so values drawn like the sample spread evenly across the shards.
+ *
+ * insert, remove and contains find the one shard covering their value by binary search over the
+ * boundaries and touch no other shard. size and iteration visit the shards one after the other
+ * without stopping writers elsewhere, so while writers run they see each shard at a different
+ * moment rather than the whole collection at one moment.
+ * */
+public class ShardedRedBlackTree<T extends Comparable<T>> implements SortedCollection<T>, Iterable<T> {
+
+    // boundaries[i] is the smallest value of shard i + 1, in ascending order
+    private final Object[] boundaries;
+    // the shards, each covering the values from the boundary before it up to the one after it
+    private final ConcurrentRedBlackTree<T>[] shards;
+
+    /**
+     * Constructor to create a new empty collection whose shard boundaries split the sorted
+     * sample into parts of equal size. A sample with few distinct values can yield fewer shards
+     * than requested, and an empty sample yields one shard.
+     *
+     * @param sample values distributed like the values the collection will hold
+     * @param shards the number of shards to create
+     * @throws NullPointerException     if sample is or contains null
+     * @throws IllegalArgumentException if shards is less than 1
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedRedBlackTree(Collection<? extends T> sample, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be at least 1: " + shards);
+        }
+        List<T> sorted = new ArrayList<>(sample);
+        Collections.sort(sorted);
+        List<T> chosen = new ArrayList<>();
+        for (int i = 1; i < shards && !sorted.isEmpty(); i++) {
+            T boundary = sorted.get((int) ((long) i * sorted.size() / shards));
+            // equal quantiles would leave the shards between them empty
+            if (chosen.isEmpty() || chosen.get(chosen.size() - 1).compareTo(boundary) < 0) {
+                chosen.add(boundary);
+            }
+        }
+        this.boundaries = chosen.toArray();
+        this.shards = new ConcurrentRedBlackTree[boundaries.length + 1];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new ConcurrentRedBlackTree<>();
+        }
+    }
+
+    /**
+     * @return the index of the shard whose range covers data
+     */
+    int shardOf(Comparable<T> data) {
+        int index = Arrays.binarySearch(boundaries, data);
+        // a boundary equal to data is the smallest value of the shard right of it
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Inserts a new data value into its shard, under that shard's lock only.
+     *
+     * @param data the new value being inserted
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public void insert(T data) throws NullPointerException {
+        if (data == null) {
+            throw new NullPointerException();
+        }
+        shards[shardOf(data)].insert(data);
+    }
+
+    /**
+     * Removes data from its shard, under that shard's lock only.
+     *
+     * @param data the value to remove
+     * @return true if data was stored and has been removed, false otherwise
+     */
+    public boolean remove(Comparable<T> data) {
+        return data != null && shards[shardOf(data)].remove(data);
+    }
+
+    /**
+     * Check whether data is stored in the collection, searching only the shard covering it.
+     *
+     * @param data the value to check for
+     * @return true if the collection contains data, and false otherwise
+     */
+    @Override
+    public boolean contains(Comparable<T> data) {
+        return data != null && shards[shardOf(data)].contains(data);
+    }
+
+    /**
+     * @return the sum of the sizes of all shards
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (ConcurrentRedBlackTree<T> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return true if no shard holds a value, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        for (ConcurrentRedBlackTree<T> shard : shards) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes all values, clearing one shard after the other.
+     */
+    @Override
+    public void clear() {
+        for (ConcurrentRedBlackTree<T> shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Returns an iterator over the values in ascending order. Shards are visited in the order of
+     * their ranges, and each one is copied under its read lock when the iterator reaches it, so
+     * the iterator never fails because of concurrent changes and holds one shard's values at a
+     * time.
+     *
+     * @return an iterator over the values of this collection
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            // the next shard to copy
+            private int shard;
+            // the values of the last shard copied that were not returned yet
+            private Iterator<T> values = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!values.hasNext() && shard < shards.length) {
+                    List<T> copy = new ArrayList<>();
+                    shards[shard++].addAllTo(copy);
+                    values = copy.iterator();
+                }
+                return values.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return values.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ShardedRedBlackTree.
+ * */
+public class ShardedRedBlackTreeTest {
+
+    /**
+     * Tester that checks the boundaries chosen from a sample: quantiles of the sorted sample,
+     * fewer shards for a sample with few distinct values, and one shard for an empty sample
+     * */
+    @Test
+    public void testBoundaries() {
+        java.util.List<Integer> sample = new java.util.ArrayList<>();
+        for (int i = 99; i >= 0; i--) {
+            sample.add(i * 10);
+        }
+        ShardedRedBlackTree<Integer> test1 = new ShardedRedBlackTree<>(sample, 4);
+        assertEquals(4, test1.shardCount());
+        // the boundaries are 250, 500 and 750
+        assertEquals(0, test1.shardOf(-5));
+        assertEquals(0, test1.shardOf(249));
+        assertEquals(1, test1.shardOf(250));
+        assertEquals(2, test1.shardOf(600));
+        assertEquals(3, test1.shardOf(750));
+        assertEquals(3, test1.shardOf(100000));
+        ShardedRedBlackTree<Integer> test2 = new ShardedRedBlackTree<>(
+                java.util.List.of(1, 1, 1, 1, 2, 2, 2, 2), 8);
+        // the boundaries are 1 and 2, leaving one shard below 1, one for 1 and one from 2 up
+        assertEquals(3, test2.shardCount());
+        assertEquals(1, new ShardedRedBlackTree<Integer>(java.util.List.of(), 8).shardCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShardedRedBlackTree<>(sample, 0));
+        assertThrows(NullPointerException.class, () -> test1.insert(null));
+    }
+
+    /**
+     * Tester that applies random inserts and removes, including values outside the range of the
+     * sample, and compares contents, size and ordered iteration against java.util.TreeSet
+     * */
+    @Test
+    public void testRandomMutations() {
+        java.util.Random random = new java.util.Random(25);
+        java.util.List<Integer> sample = new java.util.ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sample.add(random.nextInt(1000));
+        }
+        ShardedRedBlackTree<Integer> test3 = new ShardedRedBlackTree<>(sample, 8);
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(1400) - 200;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), test3.remove(value));
+            } else {
+                expected.add(value);
+                test3.insert(value);
+            }
+        }
+        assertEquals(expected.size(), test3.size());
+        java.util.List<Integer> actual = new java.util.ArrayList<>();
+        test3.forEach(actual::add);
+        assertEquals(new java.util.ArrayList<>(expected), actual);
+        for (int value = -200; value < 1200; value++) {
+            assertEquals(expected.contains(value), test3.contains(value));
+        }
+        test3.clear();
+        assertTrue(test3.isEmpty());
+        assertFalse(test3.iterator().hasNext());
+    }
+
+    /**
+     * Tester that runs writers on overlapping ranges that span several shards at the same time,
+     * and checks that every value written ends up stored exactly once
+     * */
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        java.util.List<Integer> sample = new java.util.ArrayList<>();
+        for (int i = 0; i < 40000; i += 100) {
+            sample.add(i);
+        }
+        ShardedRedBlackTree<Integer> test4 = new ShardedRedBlackTree<>(sample, 16);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                // each writer inserts its own values and removes its odd ones again
+                for (int i = id; i < 40000; i += threads.length) {
+                    test4.insert(i);
+                }
+                for (int i = id; i < 40000; i += threads.length) {
+                    if (i % 2 == 1) {
+                        test4.remove(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(20000, test4.size());
+        int expected = 0;
+        for (int value : test4) {
+            assertEquals(expected, value);
+            expected += 2;
+        }
+        assertEquals(40000, expected);
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Receives what a BSTRotation or RedBlackTree does while it changes, for a tree that was given
+ * an instance through setMetrics. A tree without metrics makes none of these calls, and does no
+ * work to collect what they report.
+ */
+public interface TreeMetrics {
+
+    /**
+     * Called when an insert starts, before the tree is searched.
+     */
+    public void insertStarted();
+
+    /**
+     * Called when an insert ends, after any repair of the tree.
+     *
+     * @param depth       the depth of the node holding the inserted value, 0 for the root
+     * @param comparisons the number of values the search compared data with, derived from depth
+     *                    rather than counted: the search compares once per level, so this is
+     *                    depth for a new node and depth + 1 for a value that was already stored
+     */
+    public void insertEnded(int depth, int comparisons);
+
+    /**
+     * Called for every rotation, whatever operation caused it.
+     *
+     * @param left true for a left rotation, false for a right rotation
+     */
+    public void rotated(boolean left);
+
+    /**
+     * Called when a red property violation is repaired by recoloring the parent, aunt and
+     * grandparent (case 1 of ensureRedProperty), which moves the violation up the tree.
+     */
+    public void recolored();
+
+    /**
+     * Called when a red property violation is repaired by one or two rotations (cases 2 and 3 of
+     * ensureRedProperty), which ends the repair.
+     */
+    public void restructured();
+
+}
@@ -0,0 +1,167 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TreeMetrics that adds everything a tree reports to plain counters. Like the trees it observes,
+ * it is not thread-safe.
+ */
+public class TreeStatistics implements TreeMetrics {
+
+    private long inserts;
+    private long comparisons;
+    private long depthSum;
+    private int maxDepth;
+    private long leftRotations;
+    private long rightRotations;
+    private long recolors;
+    private long restructures;
+
+    @Override
+    public void insertStarted() {
+    }
+
+    @Override
+    public void insertEnded(int depth, int comparisons) {
+        this.inserts++;
+        this.comparisons += comparisons;
+        this.depthSum += depth;
+        this.maxDepth = Math.max(this.maxDepth, depth);
+    }
+
+    @Override
+    public void rotated(boolean left) {
+        if (left) {
+            leftRotations++;
+        } else {
+            rightRotations++;
+        }
+    }
+
+    @Override
+    public void recolored() {
+        recolors++;
+    }
+
+    @Override
+    public void restructured() {
+        restructures++;
+    }
+
+    /**
+     * @return the number of inserts that ended
+     */
+    public long getInserts() {
+        return inserts;
+    }
+
+    /**
+     * @return the number of compareTo calls made by all inserts
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * @return the average number of compareTo calls per insert, or 0 before the first insert
+     */
+    public double getComparisonsPerInsert() {
+        return inserts == 0 ? 0 : (double) comparisons / inserts;
+    }
+
+    /**
+     * @return the average depth at which inserted values were stored, or 0 before the first insert
+     */
+    public double getAverageDepth() {
+        return inserts == 0 ? 0 : (double) depthSum / inserts;
+    }
+
+    /**
+     * @return the largest depth at which a value was inserted
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the number of left rotations
+     */
+    public long getLeftRotations() {
+        return leftRotations;
+    }
+
+    /**
+     * @return the number of right rotations
+     */
+    public long getRightRotations() {
+        return rightRotations;
+    }
+
+    /**
+     * @return the number of case 1 recolors
+     */
+    public long getRecolors() {
+        return recolors;
+    }
+
+    /**
+     * @return the number of case 2 and 3 repairs
+     */
+    public long getRestructures() {
+        return restructures;
+    }
+
+    /**
+     * Sets every counter back to 0.
+     */
+    public void reset() {
+        inserts = comparisons = depthSum = 0;
+        maxDepth = 0;
+        leftRotations = rightRotations = recolors = restructures = 0;
+    }
+
+    /**
+     * Returns a string representation of the counters.
+     *
+     * @return one line with every counter
+     */
+    @Override
+    public String toString() {
+        return String.format("inserts=%d comparisons/insert=%.2f avgDepth=%.2f maxDepth=%d "
+                        + "leftRotations=%d rightRotations=%d recolors=%d restructures=%d",
+                inserts, getComparisonsPerInsert(), getAverageDepth(), maxDepth, leftRotations,
+                rightRotations, recolors, restructures);
+    }
+
+    /**
+     * Tester that checks the counters of the insert sequence from the RedBlackTree tests: 1 to 7
+     * in ascending order, where every second insert needs a rotation
+     * */
+    @Test
+    public void testAscendingInserts() {
+        RedBlackTree<Integer> test1 = new RedBlackTree<>();
+        TreeStatistics test2 = new TreeStatistics();
+        test1.setMetrics(test2);
+        for (int i = 1; i <= 7; i++) {
+            test1.insert(i);
+        }
+        assertEquals(7, test2.getInserts());
+        // 3, 5 and 7 each cause one left rotation, 4 and 6 a recolor
+        assertEquals(3, test2.getLeftRotations());
+        assertEquals(0, test2.getRightRotations());
+        assertEquals(3, test2.getRestructures());
+        assertEquals(2, test2.getRecolors());
+        // depths 0, 1, 2, 2, 3, 3, 4 are reached with as many comparisons
+        assertEquals(15, test2.getComparisons());
+        assertEquals(4, test2.getMaxDepth());
+        // the tree ends up as 2(1, 4(3, 6(5, 7)))
+        assertEquals(4, test1.height());
+        // a duplicate is found at depth 3 after 4 comparisons
+        test1.insert(5);
+        assertEquals(8, test2.getInserts());
+        assertEquals(19, test2.getComparisons());
+        // a tree without metrics reports nothing
+        test1.setMetrics(null);
+        test1.insert(8);
+        assertEquals(8, test2.getInserts());
+    }
+}